@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * <p>
+ * Caches authentications built for bearer tokens until the earliest of token expiry and cache max-TTL. This is the shared implementation
+ * of the servlet and reactive caching authentication managers: for cached tokens, neither signature verification nor claims conversion
+ * happens.
+ * </p>
+ * <p>
+ * Authentications are mutable (details, authenticated status, credentials erasure): each request gets its own copy of the cached
+ * authentication, sharing only immutable claims and authorities, with the details of the request. Only {@link OAuthentication} and
+ * {@link JwtAuthenticationToken} can be copied: authentications of other types are not cached.
+ * </p>
+ * <p>
+ * Requires spring-security-oauth2-resource-server on the class-path.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class AuthenticationCache {
+	private final TokenCache<Authentication> cache;
+
+	public AuthenticationCache(TokenCache<Authentication> cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * @param  bearer the authentication request
+	 * @return        a copy of the authentication cached for the bearer token, with the request details, or null if none is cached
+	 */
+	public @Nullable Authentication get(BearerTokenAuthenticationToken bearer) {
+		final var cached = cache.get(bearer.getToken());
+		return cached == null ? null : copy(cached, bearer.getDetails());
+	}
+
+	/**
+	 * Caches a copy of the authentication (if its type can be copied) until the token expires.
+	 *
+	 * @param bearer        the authentication request
+	 * @param authenticated the authentication built for this request
+	 */
+	public void put(BearerTokenAuthenticationToken bearer, Authentication authenticated) {
+		final var copy = copy(authenticated, null);
+		if (copy != null) {
+			cache.put(bearer.getToken(), copy, getExpiresAt(authenticated));
+		}
+	}
+
+	/**
+	 * @param  authentication the authentication to copy
+	 * @param  details        the details to set on the copy, if not already set by the authentication type
+	 * @return                a new authentication sharing the claims and authorities of the provided one, or null if its type can't be copied
+	 */
+	static @Nullable Authentication copy(Authentication authentication, @Nullable Object details) {
+		final AbstractAuthenticationToken copy;
+		if (authentication instanceof OAuthentication<?> oauth) {
+			copy = copyOAuthentication(oauth);
+		} else if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+			copy = new JwtAuthenticationToken(jwtAuthentication.getToken(), jwtAuthentication.getAuthorities(), jwtAuthentication.getName());
+		} else {
+			return null;
+		}
+		if (copy.getDetails() == null) {
+			copy.setDetails(details);
+		}
+		return copy;
+	}
+
+	private static <T extends Map<String, Object> & Serializable> OAuthentication<T> copyOAuthentication(OAuthentication<T> source) {
+		return new OAuthentication<>(source.getClaims(), source.getAuthorities(), source.getTokenString());
+	}
+
+	static @Nullable Instant getExpiresAt(Authentication authentication) {
+		if (authentication.getCredentials() instanceof AbstractOAuth2Token token) {
+			return token.getExpiresAt();
+		}
+		if (authentication.getPrincipal() instanceof Map<?, ?> claims) {
+			final var exp = claims.get(JwtClaimNames.EXP);
+			if (exp instanceof Instant instant) {
+				return instant;
+			}
+			if (exp instanceof Number epochSeconds) {
+				return Instant.ofEpochSecond(epochSeconds.longValue());
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Assigns each known authority a stable index (for the lifetime of the JVM), so that {@link AuthoritySet} can represent granted
+ * authorities as bits and answer authority checks with bit operations.
+ * </p>
+ * <p>
+ * Authorities are registered when first met in an {@link AuthoritySet}. Registration stops after {@link #MAX_SIZE} entries (protection
+ * against unbounded growth): authorities met after that are kept by name in the authority sets which contain it.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+public final class AuthorityRegistry {
+
+	/**
+	 * Maximum number of authorities which are assigned an index
+	 */
+	public static final int MAX_SIZE = 4096;
+
+	private static final Map<String, Integer> INDEXES = new ConcurrentHashMap<>();
+
+	private AuthorityRegistry() {
+	}
+
+	/**
+	 * @param  authority authority name
+	 * @return           the index of an authority or -1 if it was not registered
+	 */
+	public static int indexOf(String authority) {
+		if (authority == null) {
+			return -1;
+		}
+		final var index = INDEXES.get(authority);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @param  authority authority name
+	 * @return           the index of the authority, assigned on first call, or -1 if the registry is full
+	 */
+	public static int register(String authority) {
+		final var index = indexOf(authority);
+		if (index >= 0 || authority == null) {
+			return index;
+		}
+		synchronized (INDEXES) {
+			final var existing = INDEXES.get(authority);
+			if (existing != null) {
+				return existing;
+			}
+			if (INDEXES.size() >= MAX_SIZE) {
+				return -1;
+			}
+			final var assigned = INDEXES.size();
+			INDEXES.put(authority, assigned);
+			return assigned;
+		}
+	}
+
+	/**
+	 * @return count of registered authorities
+	 */
+	public static int size() {
+		return INDEXES.size();
+	}
+}
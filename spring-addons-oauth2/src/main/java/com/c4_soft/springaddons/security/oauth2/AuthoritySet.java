@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * <p>
+ * Immutable set of authority names stored as a bitset of {@link AuthorityRegistry} indexes: {@link #contains(String)} is a map lookup plus
+ * a bit test and {@link #containsAny(AuthoritySet)} is a few long ANDs, whatever the number of granted authorities.
+ * </p>
+ * <p>
+ * {@link OAuthentication} builds its own once. Building a set registers each of its authority names in the global, size-bounded
+ * {@link AuthorityRegistry}: build sets only from authorities known in advance (the ones required by access rules, or granted by the
+ * authorities converter). For other {@link Authentication} implementations, check the required authority names against
+ * {@link Authentication#getAuthorities()} instead of calling {@link #of(Authentication)} on each request.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+public final class AuthoritySet {
+	private static final long[] NO_BITS = {};
+
+	public static final AuthoritySet EMPTY = new AuthoritySet(NO_BITS, Set.of());
+
+	private final long[] bits;
+
+	/**
+	 * Authorities which could not be registered (registry full)
+	 */
+	private final Set<String> unindexed;
+
+	private AuthoritySet(long[] bits, Set<String> unindexed) {
+		this.bits = bits;
+		this.unindexed = unindexed;
+	}
+
+	public static AuthoritySet of(Authentication authentication) {
+		if (authentication == null) {
+			return EMPTY;
+		}
+		if (authentication instanceof OAuthentication<?> oauth) {
+			return oauth.getAuthoritySet();
+		}
+		return of(authentication.getAuthorities());
+	}
+
+	public static AuthoritySet of(Collection<? extends GrantedAuthority> authorities) {
+		if (authorities == null || authorities.isEmpty()) {
+			return EMPTY;
+		}
+		return ofNames(authorities.stream().map(GrantedAuthority::getAuthority).toList());
+	}
+
+	public static AuthoritySet of(String... authorities) {
+		if (authorities == null || authorities.length == 0) {
+			return EMPTY;
+		}
+		return ofNames(Arrays.asList(authorities));
+	}
+
+	private static AuthoritySet ofNames(Collection<String> authorities) {
+		var bits = NO_BITS;
+		Set<String> unindexed = null;
+		for (final var authority : authorities) {
+			if (authority == null) {
+				continue;
+			}
+			final var index = AuthorityRegistry.register(authority);
+			if (index < 0) {
+				if (unindexed == null) {
+					unindexed = new HashSet<>();
+				}
+				unindexed.add(authority);
+				continue;
+			}
+			final var word = index >>> 6;
+			if (word >= bits.length) {
+				bits = Arrays.copyOf(bits, word + 1);
+			}
+			bits[word] |= 1L << index;
+		}
+		return new AuthoritySet(bits, unindexed == null ? Set.of() : Set.copyOf(unindexed));
+	}
+
+	public boolean contains(String authority) {
+		if (authority == null) {
+			return false;
+		}
+		final var index = AuthorityRegistry.indexOf(authority);
+		if (index < 0) {
+			return unindexed.contains(authority);
+		}
+		final var word = index >>> 6;
+		return word < bits.length && (bits[word] & (1L << index)) != 0;
+	}
+
+	public boolean containsAny(String... authorities) {
+		for (final var authority : authorities) {
+			if (contains(authority)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param  other authorities to look for. Build it once (at configuration time for instance) and reuse it.
+	 * @return       true if at least one of other authorities is contained in this set
+	 */
+	public boolean containsAny(AuthoritySet other) {
+		final var words = Math.min(bits.length, other.bits.length);
+		for (var i = 0; i < words; ++i) {
+			if ((bits[i] & other.bits[i]) != 0) {
+				return true;
+			}
+		}
+		if (!unindexed.isEmpty()) {
+			for (final var authority : other.unindexed) {
+				if (unindexed.contains(authority)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty() {
+		return bits.length == 0 && unindexed.isEmpty();
+	}
+}
@@ -17,10 +17,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -60,10 +59,37 @@ public interface ClaimSet extends Map<String, Object>, Serializable {
 		if (claim == null) {
 			return null;
 		}
+		final var values = new HashSet<String>();
 		if (claim instanceof final Collection<?> collection) {
-			return collection.stream().flatMap(o -> Stream.of(o.toString().split(" "))).collect(Collectors.toSet());
+			for (final var element : collection) {
+				addSpaceSeparatedValues(element.toString(), values);
+			}
+		} else {
+			addSpaceSeparatedValues(claim.toString(), values);
+		}
+		return values;
+	}
+
+	/**
+	 * Splits scope-like claims ("openid profile email" for instance) without regex nor intermediate array
+	 *
+	 * @param str    space separated values
+	 * @param values set to add the values to
+	 */
+	static void addSpaceSeparatedValues(String str, Set<String> values) {
+		var start = 0;
+		int space;
+		while ((space = str.indexOf(' ', start)) >= 0) {
+			if (space > start) {
+				values.add(str.substring(start, space));
+			}
+			start = space + 1;
+		}
+		if (start == 0) {
+			values.add(str);
+		} else if (start < str.length()) {
+			values.add(str.substring(start));
 		}
-		return Stream.of(claim.toString().split(" ")).collect(Collectors.toSet());
 	}
 
 	default @Nullable URI getAsUri(String name) throws URISyntaxException {
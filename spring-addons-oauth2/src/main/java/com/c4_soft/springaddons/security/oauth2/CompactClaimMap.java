@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * Immutable map backed by two arrays, for small claim-sets: lookups are linear scans, which is faster than hashing for a few tens of
+ * entries, and the retained size is much smaller than a {@link java.util.HashMap} (no table, no entry objects).
+ * </p>
+ * <p>
+ * Keys and values may be null (same as the {@link java.util.HashMap} copies it replaces).
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+final class CompactClaimMap extends AbstractMap<String, Object> implements Serializable {
+	private static final long serialVersionUID = -2632467420427930264L;
+
+	/**
+	 * Maximum number of entries for which an array-backed map is used
+	 */
+	static final int MAX_SIZE = 32;
+
+	private final String[] keys;
+	private final Object[] values;
+
+	private CompactClaimMap(String[] keys, Object[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	static CompactClaimMap copyOf(Map<String, ?> claims) {
+		final var keys = new String[claims.size()];
+		final var values = new Object[claims.size()];
+		var i = 0;
+		for (final var e : claims.entrySet()) {
+			keys[i] = e.getKey();
+			values[i] = e.getValue();
+			++i;
+		}
+		return new CompactClaimMap(keys, values);
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		final var i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super Object> action) {
+		for (var i = 0; i < keys.length; ++i) {
+			action.accept(keys[i], values[i]);
+		}
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<>() {
+					private int next = 0;
+
+					@Override
+					public boolean hasNext() {
+						return next < keys.length;
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						if (next >= keys.length) {
+							throw new NoSuchElementException();
+						}
+						final var entry = new SimpleImmutableEntry<>(keys[next], values[next]);
+						++next;
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.length;
+			}
+		};
+	}
+
+	private int indexOf(Object key) {
+		for (var i = 0; i < keys.length; ++i) {
+			if (Objects.equals(keys[i], key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * <p>
+ * Compact, versioned serialized forms for {@link UnmodifiableClaimSet} and {@link OAuthentication} (used through writeReplace /
+ * readResolve):
+ * </p>
+ * <ul>
+ * <li>well-known claim names (and a few frequent values) are written as a one byte index in a fixed dictionary</li>
+ * <li>any other string is written once per stream: next occurrences (an authority with the same name as a role claim value for instance)
+ * are written as an index in a table of already written strings</li>
+ * <li>common claim types (strings, numbers, booleans, instants, JSON objects and arrays) are tagged instead of relying on default Java
+ * serialization, which is used only for other values</li>
+ * </ul>
+ * <p>
+ * Strings are limited to {@value #MAX_STRING_BYTES} UTF-8 bytes and collections to {@value #MAX_SIZE} elements. The reader validates
+ * lengths, sizes and string references before allocating anything.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+final class CompactSerialization {
+	static final byte VERSION = 1;
+
+	/*
+	 * Indices are part of the serialized form: append only, never remove or reorder (or bump VERSION)
+	 */
+	private static final String[] DICTIONARY = {
+			"iss",
+			"sub",
+			"aud",
+			"exp",
+			"nbf",
+			"iat",
+			"jti",
+			"azp",
+			"auth_time",
+			"nonce",
+			"acr",
+			"amr",
+			"at_hash",
+			"c_hash",
+			"sid",
+			"typ",
+			"scope",
+			"scp",
+			"client_id",
+			"name",
+			"given_name",
+			"family_name",
+			"middle_name",
+			"nickname",
+			"preferred_username",
+			"profile",
+			"picture",
+			"website",
+			"email",
+			"email_verified",
+			"gender",
+			"birthdate",
+			"zoneinfo",
+			"locale",
+			"phone_number",
+			"phone_number_verified",
+			"address",
+			"updated_at",
+			"realm_access",
+			"resource_access",
+			"roles",
+			"groups",
+			"permissions",
+			"session_state",
+			"allowed-origins",
+			"Bearer",
+			"openid",
+			"offline_access" };
+	private static final Map<String, Integer> DICTIONARY_INDICES = new HashMap<>();
+	static {
+		for (var i = 0; i < DICTIONARY.length; ++i) {
+			DICTIONARY_INDICES.put(DICTIONARY[i], i);
+		}
+	}
+
+	static final int MAX_STRING_BYTES = 1 << 20;
+	static final int MAX_SIZE = 1 << 20;
+
+	/*
+	 * Collections are pre-sized up to this capacity only: a corrupted size can't trigger a big allocation before elements are actually read
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 256;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte LONG = 2;
+	private static final byte INTEGER = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte TRUE = 5;
+	private static final byte FALSE = 6;
+	private static final byte INSTANT = 7;
+	private static final byte MAP = 8;
+	private static final byte LIST = 9;
+	private static final byte SET = 10;
+	private static final byte OBJECT = 11;
+
+	private static final ClassValue<Constructor<?>> CLAIM_SET_CONSTRUCTORS = new ClassValue<>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> type) {
+			try {
+				return type.getConstructor(Map.class);
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+	};
+
+	private CompactSerialization() {
+	}
+
+	/**
+	 * @param  type claim-set implementation
+	 * @return      true if the compact form can be used: instances are re-created with a public constructor taking the claims map
+	 */
+	static boolean isSupported(Class<? extends UnmodifiableClaimSet> type) {
+		return CLAIM_SET_CONSTRUCTORS.get(type) != null;
+	}
+
+	static Object writeReplace(UnmodifiableClaimSet claimSet) {
+		return isSupported(claimSet.getClass()) ? new ClaimSetForm(claimSet) : claimSet;
+	}
+
+	static Object writeReplace(OAuthentication<?> authentication) {
+		return authentication.getClass() == OAuthentication.class ? new OAuthenticationForm(authentication) : authentication;
+	}
+
+	/**
+	 * Serialized form of {@link UnmodifiableClaimSet} and its specializations having a public constructor taking the claims map
+	 */
+	static final class ClaimSetForm implements Externalizable {
+		private static final long serialVersionUID = 2469618346329127470L;
+
+		private UnmodifiableClaimSet claimSet;
+
+		public ClaimSetForm() {
+		}
+
+		ClaimSetForm(UnmodifiableClaimSet claimSet) {
+			this.claimSet = claimSet;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeByte(VERSION);
+			new Writer(out).writeClaimSet(claimSet);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			checkVersion(in);
+			claimSet = new Reader(in).readClaimSet();
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			return claimSet;
+		}
+	}
+
+	/**
+	 * Serialized form of {@link OAuthentication} (but not of its specializations). The token string is written once and authorities share
+	 * the string table with claims.
+	 */
+	static final class OAuthenticationForm implements Externalizable {
+		private static final long serialVersionUID = -6048021366429227815L;
+
+		private OAuthentication<?> authentication;
+
+		public OAuthenticationForm() {
+		}
+
+		OAuthenticationForm(OAuthentication<?> authentication) {
+			this.authentication = authentication;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeByte(VERSION);
+			final var writer = new Writer(out);
+			writer.writeNullableString(authentication.getTokenString());
+			if (authentication.getClaims() instanceof UnmodifiableClaimSet claimSet && isSupported(claimSet.getClass())) {
+				out.writeBoolean(true);
+				writer.writeClaimSet(claimSet);
+			} else {
+				out.writeBoolean(false);
+				out.writeObject(authentication.getClaims());
+			}
+			final var authorities = authentication.getAuthorities();
+			writer.writeSize(authorities.size());
+			for (final var authority : authorities) {
+				if (authority instanceof SimpleGrantedAuthority) {
+					out.writeBoolean(true);
+					writer.writeString(authority.getAuthority());
+				} else {
+					out.writeBoolean(false);
+					out.writeObject(authority);
+				}
+			}
+		}
+
+		@Override
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			checkVersion(in);
+			final var reader = new Reader(in);
+			final var tokenString = reader.readNullableString();
+			final var claims = in.readBoolean() ? reader.readClaimSet() : in.readObject();
+			final var authoritiesCount = reader.readSize();
+			final var authorities = new ArrayList<GrantedAuthority>(Math.min(authoritiesCount, MAX_INITIAL_CAPACITY));
+			for (var i = 0; i < authoritiesCount; ++i) {
+				authorities.add(in.readBoolean() ? new SimpleGrantedAuthority(reader.readString()) : (GrantedAuthority) in.readObject());
+			}
+			authentication = new OAuthentication((Map) claims, authorities, tokenString);
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			return authentication;
+		}
+	}
+
+	private static void checkVersion(ObjectInput in) throws IOException {
+		final var version = in.readByte();
+		if (version != VERSION) {
+			throw new InvalidObjectException("Unsupported serialized form version: " + version);
+		}
+	}
+
+	private static final class Writer {
+		private final ObjectOutput out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Writer(ObjectOutput out) {
+			this.out = out;
+		}
+
+		void writeClaimSet(UnmodifiableClaimSet claimSet) throws IOException {
+			out.writeObject(claimSet.getClass());
+			final var claims = claimSet.getDelegate();
+			writeSize(claims.size());
+			for (final var claim : claims.entrySet()) {
+				writeString(claim.getKey());
+				writeValue(claim.getValue());
+			}
+		}
+
+		/*
+		 * 0: new string (UTF-8 bytes follow), 1 to dictionary size: dictionary entry, more: already written string
+		 */
+		void writeString(String str) throws IOException {
+			final var dictionaryIndex = DICTIONARY_INDICES.get(str);
+			if (dictionaryIndex != null) {
+				writeVarInt(dictionaryIndex + 1);
+				return;
+			}
+			final var tableIndex = strings.get(str);
+			if (tableIndex != null) {
+				writeVarInt(DICTIONARY.length + 1 + tableIndex);
+				return;
+			}
+			strings.put(str, strings.size());
+			writeVarInt(0);
+			final var bytes = str.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > MAX_STRING_BYTES) {
+				throw new NotSerializableException("String of " + bytes.length + " bytes exceeds " + MAX_STRING_BYTES);
+			}
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		void writeNullableString(@Nullable String str) throws IOException {
+			out.writeBoolean(str != null);
+			if (str != null) {
+				writeString(str);
+			}
+		}
+
+		void writeValue(@Nullable Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(NULL);
+			} else if (value instanceof String str) {
+				out.writeByte(STRING);
+				writeString(str);
+			} else if (value instanceof Long l) {
+				out.writeByte(LONG);
+				out.writeLong(l);
+			} else if (value instanceof Integer i) {
+				out.writeByte(INTEGER);
+				out.writeInt(i);
+			} else if (value instanceof Double d) {
+				out.writeByte(DOUBLE);
+				out.writeDouble(d);
+			} else if (value instanceof Boolean b) {
+				out.writeByte(b ? TRUE : FALSE);
+			} else if (value instanceof Instant instant) {
+				out.writeByte(INSTANT);
+				out.writeLong(instant.getEpochSecond());
+				out.writeInt(instant.getNano());
+			} else if (value instanceof Map<?, ?> map && hasOnlyStringKeys(map)) {
+				out.writeByte(MAP);
+				writeSize(map.size());
+				for (final var entry : map.entrySet()) {
+					writeString((String) entry.getKey());
+					writeValue(entry.getValue());
+				}
+			} else if (value instanceof List<?> || value instanceof Set<?>) {
+				final var elements = (Collection<?>) value;
+				out.writeByte(value instanceof List<?> ? LIST : SET);
+				writeSize(elements.size());
+				for (final var element : elements) {
+					writeValue(element);
+				}
+			} else {
+				out.writeByte(OBJECT);
+				out.writeObject(value);
+			}
+		}
+
+		void writeSize(int size) throws IOException {
+			if (size > MAX_SIZE) {
+				throw new NotSerializableException("Collection of " + size + " elements exceeds " + MAX_SIZE);
+			}
+			writeVarInt(size);
+		}
+
+		void writeVarInt(int value) throws IOException {
+			var remaining = value;
+			while ((remaining & ~0x7F) != 0) {
+				out.writeByte((remaining & 0x7F) | 0x80);
+				remaining >>>= 7;
+			}
+			out.writeByte(remaining);
+		}
+
+		private static boolean hasOnlyStringKeys(Map<?, ?> map) {
+			for (final var key : map.keySet()) {
+				if (!(key instanceof String)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static final class Reader {
+		private final ObjectInput in;
+		private final List<String> strings = new ArrayList<>();
+
+		Reader(ObjectInput in) {
+			this.in = in;
+		}
+
+		UnmodifiableClaimSet readClaimSet() throws IOException, ClassNotFoundException {
+			final var type = (Class<?>) in.readObject();
+			if (!UnmodifiableClaimSet.class.isAssignableFrom(type)) {
+				throw new InvalidObjectException(type.getName() + " is not an UnmodifiableClaimSet");
+			}
+			final var claims = readMap();
+			final var constructor = CLAIM_SET_CONSTRUCTORS.get(type);
+			if (constructor == null) {
+				throw new InvalidObjectException(type.getName() + " has no public constructor taking claims map");
+			}
+			try {
+				return (UnmodifiableClaimSet) constructor.newInstance(claims);
+			} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+				final var ex = new InvalidObjectException("Failed to instantiate " + type.getName());
+				ex.initCause(e);
+				throw ex;
+			}
+		}
+
+		String readString() throws IOException {
+			final var code = readVarInt();
+			if (code < 0) {
+				throw new InvalidObjectException("Invalid string reference: " + code);
+			}
+			if (code == 0) {
+				final var length = readVarInt();
+				if (length < 0 || length > MAX_STRING_BYTES) {
+					throw new InvalidObjectException("Invalid string length: " + length);
+				}
+				final var bytes = new byte[length];
+				in.readFully(bytes);
+				final var str = new String(bytes, StandardCharsets.UTF_8);
+				strings.add(str);
+				return str;
+			}
+			if (code <= DICTIONARY.length) {
+				return DICTIONARY[code - 1];
+			}
+			final var tableIndex = code - DICTIONARY.length - 1;
+			if (tableIndex >= strings.size()) {
+				throw new InvalidObjectException("Invalid string reference: " + code);
+			}
+			return strings.get(tableIndex);
+		}
+
+		@Nullable
+		String readNullableString() throws IOException {
+			return in.readBoolean() ? readString() : null;
+		}
+
+		@Nullable
+		Object readValue() throws IOException, ClassNotFoundException {
+			final var tag = in.readByte();
+			switch (tag) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString();
+			case LONG:
+				return in.readLong();
+			case INTEGER:
+				return in.readInt();
+			case DOUBLE:
+				return in.readDouble();
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case INSTANT:
+				return Instant.ofEpochSecond(in.readLong(), in.readInt());
+			case MAP:
+				return readMap();
+			case LIST:
+				return Collections.unmodifiableList(readElements(new ArrayList<>()));
+			case SET:
+				return Collections.unmodifiableSet(readElements(new LinkedHashSet<>()));
+			case OBJECT:
+				return in.readObject();
+			default:
+				throw new InvalidObjectException("Unknown value tag: " + tag);
+			}
+		}
+
+		int readVarInt() throws IOException {
+			var value = 0;
+			for (var shift = 0; shift < 32; shift += 7) {
+				final var b = in.readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new InvalidObjectException("Malformed variable length int");
+		}
+
+		int readSize() throws IOException {
+			final var size = readVarInt();
+			if (size < 0 || size > MAX_SIZE) {
+				throw new InvalidObjectException("Invalid collection size: " + size);
+			}
+			return size;
+		}
+
+		private Map<String, Object> readMap() throws IOException, ClassNotFoundException {
+			final var size = readSize();
+			final var map = new LinkedHashMap<String, Object>(Math.min(size, MAX_INITIAL_CAPACITY) * 4 / 3 + 1);
+			for (var i = 0; i < size; ++i) {
+				final var key = readString();
+				map.put(key, readValue());
+			}
+			return Collections.unmodifiableMap(map);
+		}
+
+		private <C extends Collection<Object>> C readElements(C elements) throws IOException, ClassNotFoundException {
+			final var size = readSize();
+			for (var i = 0; i < size; ++i) {
+				elements.add(readValue());
+			}
+			return elements;
+		}
+	}
+
+}
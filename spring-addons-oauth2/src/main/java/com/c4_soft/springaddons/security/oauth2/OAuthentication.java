@@ -12,20 +12,26 @@
  */
 package com.c4_soft.springaddons.security.oauth2;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.util.StringUtils;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
+ * Instances of this class (but not of its specializations) are serialized in a compact form: see {@link CompactSerialization}.
+ *
  * @author     ch4mp
  * @param  <T> OpenidClaimSet or any specialization. See {@link }
  */
@@ -34,9 +40,21 @@ import lombok.EqualsAndHashCode;
 public class OAuthentication<T extends Map<String, Object> & Serializable> extends AbstractAuthenticationToken implements OAuth2AuthenticatedPrincipal {
 	private static final long serialVersionUID = -2827891205034221389L;
 
+	private static final String BEARER_PREFIX = "Bearer ";
+
 	private final String tokenString;
 	private final T claims;
 
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@ToString.Exclude
+	private transient volatile String bearerHeader;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@ToString.Exclude
+	private transient volatile AuthoritySet authoritySet;
+
 	/**
 	 * @param claims      claim-set of any-type
 	 * @param authorities
@@ -47,7 +65,9 @@ public class OAuthentication<T extends Map<String, Object> & Serializable> exten
 		super.setAuthenticated(true);
 		super.setDetails(claims);
 		this.claims = claims;
-		this.tokenString = Optional.ofNullable(tokenString).map(ts -> ts.toLowerCase().startsWith("bearer ") ? ts.substring(7) : ts).orElse(null);
+		this.tokenString = tokenString != null && tokenString.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+				? tokenString.substring(BEARER_PREFIX.length())
+				: tokenString;
 	}
 
 	@Override
@@ -80,10 +100,34 @@ public class OAuthentication<T extends Map<String, Object> & Serializable> exten
 		return claims;
 	}
 
+	protected Object writeReplace() throws ObjectStreamException {
+		return CompactSerialization.writeReplace(this);
+	}
+
+	/**
+	 * @return "Bearer " followed by the token string (built on first call and then reused), or null if there is no token string
+	 */
 	public String getBearerHeader() {
 		if (!StringUtils.hasText(tokenString)) {
 			return null;
 		}
-		return String.format("Bearer %s", tokenString);
+		var header = bearerHeader;
+		if (header == null) {
+			header = BEARER_PREFIX + tokenString;
+			bearerHeader = header;
+		}
+		return header;
+	}
+
+	/**
+	 * @return granted authorities as a bitset (built on first call and then reused), for fast authority checks
+	 */
+	public AuthoritySet getAuthoritySet() {
+		var set = authoritySet;
+		if (set == null) {
+			set = AuthoritySet.of(getAuthorities());
+			authoritySet = set;
+		}
+		return set;
 	}
-}
\ No newline at end of file
+}
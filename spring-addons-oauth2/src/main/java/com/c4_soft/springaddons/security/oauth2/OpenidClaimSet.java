@@ -4,6 +4,7 @@ import java.security.Principal;
 import java.util.Map;
 
 import org.springframework.security.oauth2.core.oidc.IdTokenClaimAccessor;
+import org.springframework.security.oauth2.jwt.Jwt;
 
 public class OpenidClaimSet extends UnmodifiableClaimSet implements IdTokenClaimAccessor, Principal {
 	private static final long serialVersionUID = -5149299350697429528L;
@@ -12,6 +13,10 @@ public class OpenidClaimSet extends UnmodifiableClaimSet implements IdTokenClaim
 		super(claims);
 	}
 
+	public OpenidClaimSet(Jwt jwt) {
+		super(jwt);
+	}
+
 	@Override
 	public Map<String, Object> getClaims() {
 		return this;
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * <p>
+ * Size-bounded cache for values computed from access-tokens (introspection results, authentications, ...).
+ * </p>
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the token (tokens are not retained) and expire at the earliest of the expiry provided when the
+ * value is put and "now + max-TTL". When the cache is full, oldest insertions are evicted first.
+ * </p>
+ * <p>
+ * Reads of live entries are lock-free. Insertion order is kept in a doubly linked list of the live entries only (expired, invalidated and
+ * replaced entries are unlinked when they are removed), guarded by a lock taken on writes and removals.
+ * </p>
+ *
+ * @author     Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ * @param  <V> cached values type
+ */
+public class TokenCache<V> {
+	private final int maxSize;
+	private final Duration maxTtl;
+	private final Clock clock;
+
+	private final Map<String, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Sentinel of the insertion order list: {@code insertionOrder.next} is the oldest live entry, {@code insertionOrder.previous} the newest
+	 */
+	private final CacheEntry<V> insertionOrder = new CacheEntry<>(null, null, null);
+	private int linkedCount = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public TokenCache(int maxSize, Duration maxTtl) {
+		this(maxSize, maxTtl, Clock.systemUTC());
+	}
+
+	public TokenCache(int maxSize, Duration maxTtl, Clock clock) {
+		Assert.isTrue(maxSize > 0, "maxSize must be positive");
+		Assert.isTrue(maxTtl != null && !maxTtl.isNegative() && !maxTtl.isZero(), "maxTtl must be positive");
+		this.maxSize = maxSize;
+		this.maxTtl = maxTtl;
+		this.clock = clock;
+		insertionOrder.previous = insertionOrder;
+		insertionOrder.next = insertionOrder;
+	}
+
+	/**
+	 * @param  token the access-token
+	 * @return       the cached value for that token or null if there is none or if it has expired
+	 */
+	public @Nullable V get(String token) {
+		final var entry = entries.get(hash(token));
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		if (!entry.expiresAt.isAfter(clock.instant())) {
+			if (remove(entry)) {
+				evictions.increment();
+			}
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * @param token     the access-token
+	 * @param value     the value to cache
+	 * @param expiresAt when the value should expire (token "exp" most frequently). If null or later than "now + max-TTL", max-TTL applies.
+	 */
+	public void put(String token, V value, @Nullable Instant expiresAt) {
+		final var now = clock.instant();
+		final var ttlLimit = now.plus(maxTtl);
+		final var expiry = expiresAt == null || expiresAt.isAfter(ttlLimit) ? ttlLimit : expiresAt;
+		if (!expiry.isAfter(now)) {
+			return;
+		}
+		final var entry = new CacheEntry<>(hash(token), value, expiry);
+		synchronized (insertionOrder) {
+			final var replaced = entries.put(entry.key, entry);
+			if (replaced != null) {
+				unlink(replaced);
+			}
+			linkLast(entry);
+			while (linkedCount > maxSize) {
+				final var oldest = insertionOrder.next;
+				entries.remove(oldest.key, oldest);
+				unlink(oldest);
+				evictions.increment();
+			}
+		}
+	}
+
+	public void invalidate(String token) {
+		final var entry = entries.get(hash(token));
+		if (entry != null) {
+			remove(entry);
+		}
+	}
+
+	public void clear() {
+		synchronized (insertionOrder) {
+			entries.clear();
+			insertionOrder.previous = insertionOrder;
+			insertionOrder.next = insertionOrder;
+			linkedCount = 0;
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return true if the entry was still cached (and is now removed)
+	 */
+	private boolean remove(CacheEntry<V> entry) {
+		synchronized (insertionOrder) {
+			if (!entries.remove(entry.key, entry)) {
+				return false;
+			}
+			unlink(entry);
+			return true;
+		}
+	}
+
+	private void linkLast(CacheEntry<V> entry) {
+		entry.previous = insertionOrder.previous;
+		entry.next = insertionOrder;
+		insertionOrder.previous.next = entry;
+		insertionOrder.previous = entry;
+		++linkedCount;
+	}
+
+	private void unlink(CacheEntry<V> entry) {
+		if (entry.previous == null) {
+			return;
+		}
+		entry.previous.next = entry.next;
+		entry.next.previous = entry.previous;
+		entry.previous = null;
+		entry.next = null;
+		--linkedCount;
+	}
+
+	static String hash(String token) {
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static final class CacheEntry<V> {
+		private final String key;
+		private final V value;
+		private final Instant expiresAt;
+
+		/**
+		 * Guarded by the insertion order sentinel, null once unlinked
+		 */
+		private CacheEntry<V> previous;
+		private CacheEntry<V> next;
+
+		private CacheEntry(String key, V value, Instant expiresAt) {
+			this.key = key;
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
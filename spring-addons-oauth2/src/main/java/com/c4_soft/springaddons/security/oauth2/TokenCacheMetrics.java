@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 Jérôme Wacongne
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.c4_soft.springaddons.security.oauth2;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes {@link TokenCache} counters as Micrometer meters (tagged with the cache name): "springaddons.token.cache.size",
+ * "springaddons.token.cache.hits", "springaddons.token.cache.misses" and "springaddons.token.cache.evictions".
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+public class TokenCacheMetrics implements MeterBinder {
+	private final String cacheName;
+	private final TokenCache<?> cache;
+
+	public TokenCacheMetrics(String cacheName, TokenCache<?> cache) {
+		this.cacheName = cacheName;
+		this.cache = cache;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("springaddons.token.cache.size", cache, TokenCache::size).tag("cache", cacheName).register(registry);
+		FunctionCounter.builder("springaddons.token.cache.hits", cache, TokenCache::getHitCount).tag("cache", cacheName).register(registry);
+		FunctionCounter.builder("springaddons.token.cache.misses", cache, TokenCache::getMissCount).tag("cache", cacheName).register(registry);
+		FunctionCounter.builder("springaddons.token.cache.evictions", cache, TokenCache::getEvictionCount).tag("cache", cacheName).register(registry);
+	}
+}
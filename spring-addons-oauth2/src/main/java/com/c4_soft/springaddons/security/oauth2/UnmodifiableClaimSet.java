@@ -12,19 +12,156 @@
  */
 package com.c4_soft.springaddons.security.oauth2;
 
+import java.io.ObjectStreamException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+
 /**
+ * <p>
+ * Read-only claim-set. Inputs which are truly immutable (claims of another {@link UnmodifiableClaimSet}, {@link Map#of()} or
+ * {@link Map#copyOf(Map)} results) are wrapped without copy. Other inputs, including read-only views like
+ * {@link Collections#unmodifiableMap(Map)} which could still change through the viewed map, are copied, into a compact array-backed map
+ * if they are small.
+ * </p>
+ * <p>
+ * {@link Jwt#getClaims()} is a read-only view of a map owned by the {@link Jwt}: use {@link #UnmodifiableClaimSet(Jwt)} (or the
+ * equivalent constructor of a subclass) to wrap it without copy.
+ * </p>
+ * <p>
+ * As claims can't change, the results of {@link #getAsStringSet(String)}, {@link #getAsInstant(String)} and {@link #getAsUri(String)} are
+ * computed once per claim and then returned from a side table (allocated on first call). Returned sets are unmodifiable.
+ * </p>
+ * <p>
+ * Instances of classes with a public constructor taking the claims map are serialized in a compact form (see {@link CompactSerialization}).
+ * </p>
+ *
  * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
  */
 public class UnmodifiableClaimSet extends DelegatingMap<String, Object> implements ClaimSet {
 	private static final long serialVersionUID = 5103156342740420106L;
 
+	private static final int AS_STRING_SET = 0;
+	private static final int AS_INSTANT = 1;
+	private static final int AS_URI = 2;
+
+	private static final Set<Class<?>> TRUSTED_MAP_TYPES = Set
+			.copyOf(List.of(
+					Map.of().getClass(),
+					Map.of("a", 1).getClass(),
+					Map.of("a", 1, "b", 2).getClass(),
+					Collections.emptyMap().getClass(),
+					CompactClaimMap.class));
+
+	private transient volatile Map<String, Object[]> convertedClaims;
+
 	public UnmodifiableClaimSet(Map<String, Object> delegate) {
-		super(Collections.unmodifiableMap(new HashMap<>(delegate)));
+		super(unmodifiable(delegate));
+	}
+
+	/**
+	 * @param jwt a decoded JWT, the claims of which are never modified once built: they are wrapped without copy
+	 */
+	public UnmodifiableClaimSet(Jwt jwt) {
+		super(jwt.getClaims());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public @Nullable Set<String> getAsStringSet(String name) {
+		final var memoized = getConverted(name, AS_STRING_SET);
+		if (memoized != null) {
+			return (Set<String>) memoized;
+		}
+		final var claim = get(name);
+		if (claim == null) {
+			return null;
+		}
+		if (claim instanceof String str && str.indexOf(' ') < 0) {
+			return (Set<String>) setConverted(name, AS_STRING_SET, Set.of(str));
+		}
+		return (Set<String>) setConverted(name, AS_STRING_SET, Collections.unmodifiableSet(ClaimSet.super.getAsStringSet(name)));
+	}
+
+	@Override
+	public @Nullable Instant getAsInstant(String name) {
+		final var memoized = getConverted(name, AS_INSTANT);
+		if (memoized != null) {
+			return (Instant) memoized;
+		}
+		final var instant = ClaimSet.super.getAsInstant(name);
+		return instant == null ? null : (Instant) setConverted(name, AS_INSTANT, instant);
+	}
+
+	@Override
+	public @Nullable URI getAsUri(String name) throws URISyntaxException {
+		final var memoized = getConverted(name, AS_URI);
+		if (memoized != null) {
+			return (URI) memoized;
+		}
+		final var uri = ClaimSet.super.getAsUri(name);
+		return uri == null ? null : (URI) setConverted(name, AS_URI, uri);
+	}
+
+	private @Nullable Object getConverted(String name, int type) {
+		final var converted = convertedClaims;
+		if (converted == null) {
+			return null;
+		}
+		final var values = converted.get(name);
+		return values == null ? null : values[type];
+	}
+
+	/*
+	 * Races are benign: converted values are immutable and equal whatever the thread which computed it. Arrays are copied on write so that
+	 * values are published through the concurrent map.
+	 */
+	private Object setConverted(String name, int type, Object value) {
+		var converted = convertedClaims;
+		if (converted == null) {
+			synchronized (this) {
+				converted = convertedClaims;
+				if (converted == null) {
+					converted = new ConcurrentHashMap<>(4);
+					convertedClaims = converted;
+				}
+			}
+		}
+		final var added = new Object[3];
+		added[type] = value;
+		converted.merge(name, added, (previous, n) -> {
+			final var merged = previous.clone();
+			merged[type] = value;
+			return merged;
+		});
+		return value;
+	}
+
+	private static Map<String, Object> unmodifiable(Map<String, Object> claims) {
+		if (claims instanceof UnmodifiableClaimSet claimSet) {
+			return claimSet.getDelegate();
+		}
+		if (TRUSTED_MAP_TYPES.contains(claims.getClass())) {
+			return claims;
+		}
+		if (claims.size() <= CompactClaimMap.MAX_SIZE) {
+			return CompactClaimMap.copyOf(claims);
+		}
+		return Collections.unmodifiableMap(new HashMap<>(claims));
+	}
+
+	protected Object writeReplace() throws ObjectStreamException {
+		return CompactSerialization.writeReplace(this);
 	}
 
 	@Override
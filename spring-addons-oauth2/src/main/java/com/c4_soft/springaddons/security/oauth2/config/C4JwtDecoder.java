@@ -0,0 +1,149 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.util.Assert;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+/**
+ * <p>
+ * JWT decoder accepting already parsed tokens: when the token was parsed to select the issuer (and its decoder), neither Base64 nor JSON
+ * decoding happens twice.
+ * </p>
+ * <p>
+ * Decoding steps are the same as with {@link org.springframework.security.oauth2.jwt.NimbusJwtDecoder}: signature verification by the
+ * Nimbus processor, claims conversion with {@link MappedJwtClaimSetConverter} defaults and validation with the configured
+ * {@link OAuth2TokenValidator}.
+ * </p>
+ * <p>
+ * If a verified signatures cache is set, successful signature verifications are remembered (by hash of the serialized token: header,
+ * payload and signature) until the token expires: the same token presented again skips key selection and signature verification, but
+ * claims are still converted and validated (time-based claims in particular). Be aware that a cached token remains accepted until the cache
+ * max-TTL even if the key it was signed with is removed from the JWK set.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class C4JwtDecoder implements JwtDecoder {
+	private final JWTProcessor<SecurityContext> jwtProcessor;
+	private final @Nullable RefreshingJwkSource jwkSource;
+	private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+	private OAuth2TokenValidator<Jwt> jwtValidator = JwtValidators.createDefault();
+	private @Nullable TokenCache<Boolean> verifiedSignatures = null;
+
+	public C4JwtDecoder(JWTProcessor<SecurityContext> jwtProcessor) {
+		this.jwtProcessor = jwtProcessor;
+		this.jwkSource = null;
+	}
+
+	/**
+	 * @param jwkSource source of the keys to verify signatures with (see {@link JwkSetCache#getJwtProcessor(com.nimbusds.jose.jwk.source.JWKSource)})
+	 */
+	public C4JwtDecoder(RefreshingJwkSource jwkSource) {
+		this.jwtProcessor = JwkSetCache.getJwtProcessor(jwkSource);
+		this.jwkSource = jwkSource;
+	}
+
+	public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+		Assert.notNull(jwtValidator, "jwtValidator cannot be null");
+		this.jwtValidator = jwtValidator;
+	}
+
+	/**
+	 * @param verifiedSignatures cache for successful signature verifications (null to verify signatures on each call)
+	 */
+	public void setVerifiedSignatures(@Nullable TokenCache<Boolean> verifiedSignatures) {
+		this.verifiedSignatures = verifiedSignatures;
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		try {
+			return decode(JWTParser.parse(token), token);
+		} catch (ParseException e) {
+			throw new BadJwtException("Failed to parse the token: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @param  parsed the token, already parsed
+	 * @return        true if decoding the token might block on a JWK set retrieval (always true if the decoder was not built with a
+	 *                {@link RefreshingJwkSource})
+	 */
+	public boolean isBlocking(JWT parsed) {
+		if (jwkSource == null) {
+			return true;
+		}
+		return parsed instanceof SignedJWT signed && jwkSource.isFetchRequired(signed.getHeader());
+	}
+
+	/**
+	 * @param  parsed       the token, already parsed
+	 * @param  token        the serialized token
+	 * @return              a validated {@link Jwt}
+	 * @throws JwtException if the signature or claims are not valid
+	 */
+	public Jwt decode(JWT parsed, String token) throws JwtException {
+		final var claimsSet = verifiedSignatures != null && parsed instanceof SignedJWT signed
+				? getVerifiedClaimsSet(signed, token, verifiedSignatures)
+				: process(parsed);
+
+		final var headers = new LinkedHashMap<String, Object>(parsed.getHeader().toJSONObject());
+		final var claims = claimSetConverter.convert(claimsSet.getClaims());
+		final var jwt = Jwt.withTokenValue(token).headers(h -> h.putAll(headers)).claims(c -> c.putAll(claims)).build();
+
+		final var result = jwtValidator.validate(jwt);
+		if (result.hasErrors()) {
+			throw new JwtValidationException(result.getErrors().iterator().next().getDescription(), result.getErrors());
+		}
+		return jwt;
+	}
+
+	private JWTClaimsSet getVerifiedClaimsSet(SignedJWT signed, String token, TokenCache<Boolean> verifiedSignatures) throws JwtException {
+		if (verifiedSignatures.get(token) == null) {
+			final var claimsSet = process(signed);
+			verifiedSignatures.put(token, Boolean.TRUE, claimsSet.getExpirationTime() == null ? null : claimsSet.getExpirationTime().toInstant());
+			return claimsSet;
+		}
+		try {
+			return signed.getJWTClaimsSet();
+		} catch (ParseException e) {
+			throw new BadJwtException("Failed to parse the token: " + e.getMessage(), e);
+		}
+	}
+
+	private JWTClaimsSet process(JWT parsed) throws JwtException {
+		try {
+			return jwtProcessor.process(parsed, null);
+		} catch (RemoteKeySourceException e) {
+			throw new JwtException("Failed to retrieve the keys to validate the token: " + e.getMessage(), e);
+		} catch (BadJOSEException e) {
+			throw new BadJwtException("Failed to validate the token: " + e.getMessage(), e);
+		} catch (JOSEException e) {
+			throw new JwtException("Failed to validate the token: " + e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * <p>
+ * Immutable accessor for a dot.separated.path to a claim, compiled once.
+ * </p>
+ * <p>
+ * Values are collected as strings:
+ * </p>
+ * <ul>
+ * <li>arrays (and nested arrays) are flattened</li>
+ * <li>scalar claims (a single string for instance) are collected as a single value</li>
+ * <li>when an intermediate claim is an array, the remaining path is resolved on each of its elements</li>
+ * <li>missing claims or nodes which are neither objects nor arrays are ignored</li>
+ * </ul>
+ *
+ * @author ch4mp
+ */
+public final class ClaimPath {
+	private final String path;
+	private final String[] segments;
+
+	private ClaimPath(String path, String[] segments) {
+		this.path = path;
+		this.segments = segments;
+	}
+
+	/**
+	 * @param  path dot.separated.path to a claim
+	 * @return      the compiled accessor
+	 */
+	public static ClaimPath compile(String path) {
+		Assert.hasLength(path, "claim path must not be empty");
+		final var segments = new ArrayList<String>();
+		var start = 0;
+		int dot;
+		while ((dot = path.indexOf('.', start)) >= 0) {
+			segments.add(path.substring(start, dot));
+			start = dot + 1;
+		}
+		segments.add(path.substring(start));
+		return new ClaimPath(path, segments.toArray(new String[0]));
+	}
+
+	/**
+	 * @param claims claim-set to walk
+	 * @param values collection to add the values found at this path to
+	 */
+	public void collect(Map<String, Object> claims, Collection<String> values) {
+		walk(claims, 0, values);
+	}
+
+	private void walk(Object node, int depth, Collection<String> values) {
+		if (node == null) {
+			return;
+		}
+		if (depth == segments.length) {
+			addValues(node, values);
+			return;
+		}
+		if (node instanceof Map<?, ?> map) {
+			walk(map.get(segments[depth]), depth + 1, values);
+		} else if (node instanceof Collection<?> elements) {
+			for (final var element : elements) {
+				walk(element, depth, values);
+			}
+		} else if (node instanceof Object[] elements) {
+			for (final var element : elements) {
+				walk(element, depth, values);
+			}
+		}
+	}
+
+	private static void addValues(Object node, Collection<String> values) {
+		if (node instanceof Collection<?> elements) {
+			for (final var element : elements) {
+				if (element != null) {
+					addValues(element, values);
+				}
+			}
+		} else if (node instanceof Object[] elements) {
+			for (final var element : elements) {
+				if (element != null) {
+					addValues(element, values);
+				}
+			}
+		} else if (!(node instanceof Map)) {
+			values.add(node.toString());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
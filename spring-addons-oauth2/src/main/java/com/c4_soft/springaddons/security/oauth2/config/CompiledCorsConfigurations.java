@@ -0,0 +1,131 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.CorsProperties;
+
+/**
+ * <p>
+ * CORS configurations for {@link SpringAddonsSecurityProperties#getCors()}, shared by servlet and reactive resource-servers:
+ * </p>
+ * <ul>
+ * <li>paths are compiled into {@link CompiledPathPatterns} (PathPattern semantics, first declared entry wins, like
+ * UrlBasedCorsConfigurationSource)</li>
+ * <li>configurations are built once and checks are answered from precomputed sets: allowed origins are looked-up in a hash set (origin
+ * patterns, only taken from {@link CorsProperties#getAllowedOriginPatterns()}, are matched as fallback) and allowed headers in a
+ * lower-cased hash set</li>
+ * </ul>
+ * <p>
+ * As with a plain {@link CorsConfiguration}, an allowed origin containing a wildcard (other than "*" alone) is compared as a string: it is
+ * not turned into a pattern.
+ * </p>
+ * <p>
+ * Access-Control-* response headers are then written by Spring default CORS processor. It could be replaced (with
+ * {@code CorsFilter#setCorsProcessor} or {@code new CorsWebFilter(source, processor)}), but formatting these headers is cheap compared
+ * to the checks above, so it is not.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public final class CompiledCorsConfigurations {
+	private final CompiledPathPatterns paths;
+	private final CorsConfiguration[] configurations;
+
+	public CompiledCorsConfigurations(CorsProperties[] corsProperties) {
+		this.paths = new CompiledPathPatterns(Arrays.stream(corsProperties).map(CorsProperties::getPath).toArray(String[]::new), pattern -> {
+			final var pathPattern = PathPatternParser.defaultInstance.parse(pattern);
+			return path -> pathPattern.matches(PathContainer.parsePath(path));
+		});
+		this.configurations = Arrays.stream(corsProperties).map(PrecomputedCorsConfiguration::new).toArray(CorsConfiguration[]::new);
+	}
+
+	/**
+	 * @param  path request path within application
+	 * @return      the configuration of the first CORS entry matching the path, or null
+	 */
+	public CorsConfiguration getCorsConfiguration(String path) {
+		final var i = paths.indexOfFirstMatch(path);
+		return i < 0 ? null : configurations[i];
+	}
+
+	static final class PrecomputedCorsConfiguration extends CorsConfiguration {
+		private final boolean isAnyOrigin;
+		private final Set<String> exactOrigins = new HashSet<>();
+		private final boolean hasOriginPatterns;
+		private final boolean isAnyHeader;
+		private final Set<String> allowedHeaders = new HashSet<>();
+
+		PrecomputedCorsConfiguration(CorsProperties corsProperties) {
+			final var origins = Arrays.asList(corsProperties.getAllowedOrigins());
+			for (final var origin : origins) {
+				exactOrigins.add(normalize(origin));
+			}
+			this.isAnyOrigin = origins.contains(ALL);
+			setAllowedOrigins(origins);
+			final var originPatterns = corsProperties.getAllowedOriginPatterns();
+			this.hasOriginPatterns = originPatterns != null && originPatterns.length > 0;
+			if (hasOriginPatterns) {
+				setAllowedOriginPatterns(Arrays.asList(originPatterns));
+			}
+
+			setAllowedMethods(Arrays.asList(corsProperties.getAllowedMethods()));
+
+			setAllowedHeaders(Arrays.asList(corsProperties.getAllowedHeaders()));
+			this.isAnyHeader = Arrays.asList(corsProperties.getAllowedHeaders()).contains(ALL);
+			for (final var header : corsProperties.getAllowedHeaders()) {
+				allowedHeaders.add(header.toLowerCase(Locale.ROOT));
+			}
+
+			setExposedHeaders(Arrays.asList(corsProperties.getExposedHeaders()));
+		}
+
+		@Override
+		public String checkOrigin(String requestOrigin) {
+			if (isAnyOrigin || !StringUtils.hasText(requestOrigin)) {
+				return super.checkOrigin(requestOrigin);
+			}
+			if (exactOrigins.contains(normalize(requestOrigin))) {
+				return requestOrigin;
+			}
+			return hasOriginPatterns ? super.checkOrigin(requestOrigin) : null;
+		}
+
+		@Override
+		public List<String> checkHeaders(List<String> requestHeaders) {
+			if (requestHeaders == null) {
+				return null;
+			}
+			if (requestHeaders.isEmpty()) {
+				return List.of();
+			}
+			if (allowedHeaders.isEmpty()) {
+				return null;
+			}
+			final var result = new ArrayList<String>(requestHeaders.size());
+			for (final var requestHeader : requestHeaders) {
+				if (StringUtils.hasText(requestHeader)) {
+					final var header = requestHeader.trim();
+					if (isAnyHeader || allowedHeaders.contains(header.toLowerCase(Locale.ROOT))) {
+						result.add(header);
+					}
+				}
+			}
+			return result.isEmpty() ? null : result;
+		}
+
+		private static String normalize(String origin) {
+			final var trimmed = origin.endsWith("/") ? origin.substring(0, origin.length() - 1) : origin;
+			return trimmed.toLowerCase(Locale.ROOT);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * A list of path patterns (like {@link SpringAddonsSecurityProperties#getPermitAll()} or CORS paths) compiled into a single matcher:
+ * </p>
+ * <ul>
+ * <li>literal patterns ({@code /favicon.ico}) and "everything under" patterns ({@code /actuator/**}) are inserted in a trie of path
+ * segments, so that matching a request path is a single walk of its segments, whatever the number of patterns</li>
+ * <li>other patterns (with wildcards or URI variables elsewhere than in a trailing {@code /**}) are matched one after the other with the
+ * provided fallback, after the trie</li>
+ * </ul>
+ * <p>
+ * Paths the trie can't answer the same way as Ant and PathPattern matchers (empty segments like in {@code //foo}) are matched against all
+ * patterns with the fallback.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public final class CompiledPathPatterns implements Predicate<String> {
+	private static final int NO_MATCH = Integer.MAX_VALUE;
+
+	private final Node root = new Node();
+	private final List<Predicate<String>> patterns = new ArrayList<>();
+	private final int[] wildcardPatterns;
+	private final int[] allPatterns;
+
+	/**
+	 * @param patterns         Ant or PathPattern style patterns
+	 * @param fallbackCompiler compiles a pattern into a predicate on paths (a PathPattern in both servlet and reactive permit-all matchers),
+	 *                         used for patterns the trie can't hold
+	 */
+	public CompiledPathPatterns(String[] patterns, Function<String, Predicate<String>> fallbackCompiler) {
+		final var wildcards = new ArrayList<Integer>();
+		for (var i = 0; i < patterns.length; ++i) {
+			this.patterns.add(fallbackCompiler.apply(patterns[i]));
+			if (!insert(patterns[i], i)) {
+				wildcards.add(i);
+			}
+		}
+		this.wildcardPatterns = wildcards.stream().mapToInt(Integer::intValue).toArray();
+		this.allPatterns = IntStream.range(0, patterns.length).toArray();
+	}
+
+	/**
+	 * @param  path request path within application (starting with a "/")
+	 * @return      true if at least one of the patterns matches
+	 */
+	@Override
+	public boolean test(String path) {
+		return indexOfFirstMatch(path) >= 0;
+	}
+
+	/**
+	 * @param  path request path within application (starting with a "/")
+	 * @return      the index of the first pattern (in constructor array order) matching the path, or -1 if none matches
+	 */
+	public int indexOfFirstMatch(String path) {
+		if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+			return toIndex(firstFallbackMatch(allPatterns, path, NO_MATCH));
+		}
+		var best = NO_MATCH;
+		var node = root;
+		var start = 1;
+		while (node != null) {
+			best = Math.min(best, node.prefixIndex);
+			if (best == 0 || start >= path.length()) {
+				// "/" or trailing separator: "/foo/" is not matched by "/foo"
+				break;
+			}
+			var end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			if (end == start) {
+				// empty segment: let the fallback decide how it handles it
+				return toIndex(firstFallbackMatch(allPatterns, path, NO_MATCH));
+			}
+			node = node.children.get(path.substring(start, end));
+			if (node != null && end == path.length()) {
+				best = Math.min(best, Math.min(node.literalIndex, node.prefixIndex));
+				break;
+			}
+			start = end + 1;
+		}
+		return toIndex(firstFallbackMatch(wildcardPatterns, path, best));
+	}
+
+	/**
+	 * @return true if the pattern was inserted in the trie, false if it contains wildcards which require the fallback
+	 */
+	private boolean insert(String pattern, int index) {
+		if (pattern == null || pattern.isEmpty() || pattern.charAt(0) != '/') {
+			return false;
+		}
+		final var isPrefix = pattern.endsWith("/**");
+		final var literal = isPrefix ? pattern.substring(0, pattern.length() - 3) : pattern;
+		if (literal.indexOf('*') >= 0 || literal.indexOf('?') >= 0 || literal.indexOf('{') >= 0 || literal.endsWith("/") || literal.contains("//")) {
+			return false;
+		}
+		var node = root;
+		if (!literal.isEmpty()) {
+			for (final var segment : literal.substring(1).split("/")) {
+				node = node.children.computeIfAbsent(segment, s -> new Node());
+			}
+		}
+		if (isPrefix) {
+			node.prefixIndex = Math.min(node.prefixIndex, index);
+		} else {
+			node.literalIndex = Math.min(node.literalIndex, index);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the index of the first of the candidate patterns which matches with an index lower than best, or best
+	 */
+	private int firstFallbackMatch(int[] candidates, String path, int best) {
+		for (final var i : candidates) {
+			if (i >= best) {
+				break;
+			}
+			if (patterns.get(i).test(path)) {
+				return i;
+			}
+		}
+		return best;
+	}
+
+	private static int toIndex(int match) {
+		return match == NO_MATCH ? -1 : match;
+	}
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private int literalIndex = NO_MATCH;
+		private int prefixIndex = NO_MATCH;
+	}
+}
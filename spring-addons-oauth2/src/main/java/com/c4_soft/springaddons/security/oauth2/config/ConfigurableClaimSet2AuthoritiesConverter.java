@@ -1,21 +1,17 @@
 package com.c4_soft.springaddons.security.oauth2.config;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Stream;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtClaimNames;
 
-import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.Case;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
 import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.SimpleAuthoritiesMappingProperties;
 
-import lombok.RequiredArgsConstructor;
-
 /**
  * <p>Portable converter to extract Spring-security authorities from OAuth2 claims.</p>
  * <p>It is designed to work with {@link SpringAddonsSecurityProperties} which enable to configure:</p>
@@ -24,57 +20,102 @@ import lombok.RequiredArgsConstructor;
  * <li>prefix (should anything like "ROLE_" or "PREFIX_" be pre-pended to authorities)</li>
  * <li>case transformation (should be authorities be forced to uppercase, lowercase or be left untouched)</li>
  * </ul>
+ * <p>Authorities mapping configuration is resolved from the "iss" claim with an index (trailing slashes ignored). Claims paths are compiled
+ * into {@link ClaimPath} accessors together with this index, which is re-built only if the issuers or claims configuration is replaced.</p>
+ * <p>If "authorities-pool-max-size" is positive, authorities are interned in a {@link GrantedAuthorityPool}.</p>
  * @author ch4mp
  *
  */
-@RequiredArgsConstructor
 public class ConfigurableClaimSet2AuthoritiesConverter implements OAuth2AuthoritiesConverter {
 	private final SpringAddonsSecurityProperties properties;
+	private volatile IssuerIndex issuerIndex;
+	private final GrantedAuthorityPool authorityPool;
+
+	public ConfigurableClaimSet2AuthoritiesConverter(SpringAddonsSecurityProperties properties) {
+		this.properties = properties;
+		this.authorityPool = properties.getAuthoritiesPoolMaxSize() > 0 ? new GrantedAuthorityPool(properties.getAuthoritiesPoolMaxSize()) : null;
+		this.issuerIndex = IssuerIndex.of(properties.getIssuers());
+	}
 
 	@Override
 	public Collection<? extends GrantedAuthority> convert(Map<String, Object> source) {
-		final var authoritiesMappingProperties = getAuthoritiesMappingProperties(source);
-		return Stream.of(authoritiesMappingProperties.getClaims()).flatMap(rolesPath -> getRoles(source, rolesPath))
-				.map(r -> String.format("%s%s", authoritiesMappingProperties.getPrefix(), processCase(r, authoritiesMappingProperties.getCaze())))
-				.map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r)).toList();
+		final var issuerMapping = getIssuerMapping(source);
+		final var authoritiesMappingProperties = issuerMapping.properties();
+		final var roles = new ArrayList<String>();
+		for (final var claimPath : issuerMapping.claimPaths()) {
+			claimPath.collect(source, roles);
+		}
+		final var authorities = new ArrayList<GrantedAuthority>(roles.size());
+		final var prefix = authoritiesMappingProperties.getPrefix();
+		final var caze = authoritiesMappingProperties.getCaze();
+		for (final var r : roles) {
+			authorities.add(authorityPool != null ? authorityPool.get(prefix, caze, r) : GrantedAuthorityPool.create(prefix, caze, r));
+		}
+		return Collections.unmodifiableList(authorities);
 	}
 
-	private String processCase(String role, Case caze) {
-		switch (caze) {
-		case UPPER: {
-			return role.toUpperCase();
+	private IssuerMapping getIssuerMapping(Map<String, Object> claimSet) {
+		final var iss = claimSet.get(JwtClaimNames.ISS);
+		if (iss == null) {
+			throw new MissingAuthorizationServerConfigurationException(null);
+		}
+		final var issuer = normalize(iss.toString());
+		var index = getIssuerIndex();
+		var issuerMapping = index.byIssuer().get(issuer);
+		if (issuerMapping != null && issuerMapping.claims() != issuerMapping.properties().getClaims()) {
+			index = IssuerIndex.of(index.source());
+			issuerIndex = index;
+			issuerMapping = index.byIssuer().get(issuer);
 		}
-		case LOWER: {
-			return role.toLowerCase();
+		if (issuerMapping == null) {
+			throw new MissingAuthorizationServerConfigurationException(iss.toString());
 		}
-		default:
-			return role;
+		return issuerMapping;
+	}
+
+	/*
+	 * The index is keyed by issuers array identity (and each entry by claims array identity): replacing the issuers or claims configuration
+	 * (refresh or setter) triggers a new indexation and compilation. Only the current index is retained.
+	 */
+	private IssuerIndex getIssuerIndex() {
+		final var issuers = properties.getIssuers();
+		var index = issuerIndex;
+		if (index.source() != issuers) {
+			index = IssuerIndex.of(issuers);
+			issuerIndex = index;
 		}
+		return index;
 	}
 
-	private SimpleAuthoritiesMappingProperties getAuthoritiesMappingProperties(Map<String, Object> claimSet) {
-		return Stream.of(properties.getIssuers()).filter(ap -> Objects.equals(ap.getLocation().toString(), claimSet.get(JwtClaimNames.ISS).toString()))
-				.findAny()
-				.orElseThrow(
-						() -> new MissingAuthorizationServerConfigurationException(
-								Optional.ofNullable(claimSet.get(JwtClaimNames.ISS)).map(Object::toString).orElse(null)))
-				.getAuthorities();
+	private static String normalize(String issuer) {
+		var end = issuer.length();
+		while (end > 0 && issuer.charAt(end - 1) == '/') {
+			--end;
+		}
+		return end == issuer.length() ? issuer : issuer.substring(0, end);
 	}
 
-	@SuppressWarnings("unchecked")
-	private static Stream<String> getRoles(Map<String, Object> claims, String rolesPath) {
-		final var claimsToWalk = rolesPath.split("\\.");
-		var i = 0;
-		var obj = Optional.of(claims);
-		while (i++ < claimsToWalk.length) {
-			final var claimName = claimsToWalk[i - 1];
-			if (i == claimsToWalk.length) {
-				return obj.map(o -> (List<Object>) o.get(claimName)).orElse(List.of()).stream().map(Object::toString);
+	private static record IssuerIndex(IssuerProperties[] source, Map<String, IssuerMapping> byIssuer) {
+		static IssuerIndex of(IssuerProperties[] issuers) {
+			final var byIssuer = new HashMap<String, IssuerMapping>(issuers.length * 2);
+			for (final var issuer : issuers) {
+				if (issuer.getLocation() != null) {
+					byIssuer.put(normalize(issuer.getLocation().toString()), IssuerMapping.of(issuer.getAuthorities()));
+				}
 			}
-			obj = obj.map(o -> (Map<String, Object>) o.get(claimName));
+			return new IssuerIndex(issuers, Collections.unmodifiableMap(byIssuer));
+		}
+	}
 
+	private static record IssuerMapping(SimpleAuthoritiesMappingProperties properties, String[] claims, ClaimPath[] claimPaths) {
+		static IssuerMapping of(SimpleAuthoritiesMappingProperties properties) {
+			final var claims = properties.getClaims();
+			final var paths = new ClaimPath[claims.length];
+			for (var i = 0; i < claims.length; ++i) {
+				paths[i] = ClaimPath.compile(claims[i]);
+			}
+			return new IssuerMapping(properties, claims, paths);
 		}
-		return Stream.empty();
 	}
 
 }
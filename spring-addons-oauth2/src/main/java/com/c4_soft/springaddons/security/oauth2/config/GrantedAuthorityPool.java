@@ -0,0 +1,84 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.Assert;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.Case;
+
+/**
+ * <p>
+ * Bounded pool of canonical (immutable) {@link GrantedAuthority} instances, keyed by prefix, case transformation and raw role.
+ * </p>
+ * <p>
+ * Once a role was mapped, subsequent mappings return the same instance without any string transformation. When the pool is full, new
+ * authorities are created on each call (and not retained).
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class GrantedAuthorityPool {
+	private final int maxSize;
+	private final AtomicInteger size = new AtomicInteger();
+	private final Map<String, Map<Case, Map<String, GrantedAuthority>>> authorities = new ConcurrentHashMap<>();
+
+	public GrantedAuthorityPool(int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be positive");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @param  prefix prefix to prepend to the role (after case transformation)
+	 * @param  caze   case transformation to apply to the role
+	 * @param  role   raw role, as found in the claims
+	 * @return        the canonical authority for that role, prefix and case
+	 */
+	public GrantedAuthority get(String prefix, Case caze, String role) {
+		final var byRole = authorities.computeIfAbsent(prefix, p -> new ConcurrentHashMap<>()).computeIfAbsent(caze, c -> new ConcurrentHashMap<>());
+		final var pooled = byRole.get(role);
+		if (pooled != null) {
+			return pooled;
+		}
+		final var authority = create(prefix, caze, role);
+		if (size.get() >= maxSize) {
+			return authority;
+		}
+		final var previous = byRole.putIfAbsent(role, authority);
+		if (previous != null) {
+			return previous;
+		}
+		size.incrementAndGet();
+		return authority;
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * @param  prefix prefix to prepend to the role (after case transformation)
+	 * @param  caze   case transformation to apply to the role
+	 * @param  role   raw role, as found in the claims
+	 * @return        a new authority (not pooled)
+	 */
+	public static GrantedAuthority create(String prefix, Case caze, String role) {
+		return new SimpleGrantedAuthority(prefix + processCase(role, caze));
+	}
+
+	private static String processCase(String role, Case caze) {
+		switch (caze) {
+		case UPPER: {
+			return role.toUpperCase();
+		}
+		case LOWER: {
+			return role.toLowerCase();
+		}
+		default:
+			return role;
+		}
+	}
+}
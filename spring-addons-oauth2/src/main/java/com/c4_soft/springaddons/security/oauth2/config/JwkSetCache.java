@@ -0,0 +1,169 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.util.StringUtils;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * <p>
+ * Shared cache of {@link RefreshingJwkSource} (one per JWK-set URI) and factory for JWT processors using it. All sources are refreshed by
+ * a single background daemon thread.
+ * </p>
+ * <p>
+ * If an issuer has no explicit jwk-set-uri, it is discovered from the issuer OpenID configuration (or RFC 8414 authorization-server
+ * metadata) the first time a source is requested for that issuer. The discovered URI is kept for the cache lifetime. A failed discovery is
+ * memoized too: it is retried at most once per min-refetch interval, other requests for the issuer fail fast in between.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class JwkSetCache implements AutoCloseable {
+	private static final Set<JWSAlgorithm> SIGNATURE_ALGORITHMS = new HashSet<>();
+	static {
+		SIGNATURE_ALGORITHMS.addAll(JWSAlgorithm.Family.RSA);
+		SIGNATURE_ALGORITHMS.addAll(JWSAlgorithm.Family.EC);
+	}
+
+	private final ResourceRetriever retriever;
+	private final Duration refreshInterval;
+	private final Duration minRefetchInterval;
+	private final ScheduledExecutorService scheduler;
+	private final Clock clock;
+	private final Map<URL, RefreshingJwkSource> sources = new ConcurrentHashMap<>();
+	private final Map<URI, JwkSetUriDiscovery> discoveries = new ConcurrentHashMap<>();
+
+	public JwkSetCache(Duration refreshInterval, Duration minRefetchInterval, Duration connectTimeout, Duration readTimeout) {
+		this(
+				new DefaultResourceRetriever((int) connectTimeout.toMillis(), (int) readTimeout.toMillis(), 512 * 1024),
+				refreshInterval,
+				minRefetchInterval,
+				Clock.systemUTC());
+	}
+
+	JwkSetCache(ResourceRetriever retriever, Duration refreshInterval, Duration minRefetchInterval, Clock clock) {
+		this.retriever = retriever;
+		this.refreshInterval = refreshInterval;
+		this.minRefetchInterval = minRefetchInterval;
+		this.clock = clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final var thread = new Thread(runnable, "spring-addons-jwk-set-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param  issuer                issuer configuration
+	 * @return                       the shared JWK source for the issuer JWK-set URI
+	 * @throws IllegalStateException if the JWK-set URI can't be discovered from the issuer location (or discovery failed less than
+	 *                               min-refetch interval ago)
+	 */
+	public RefreshingJwkSource getJwkSource(IssuerProperties issuer) {
+		final var jwkSetUrl = getJwkSetUrl(issuer);
+		return sources
+				.computeIfAbsent(
+						jwkSetUrl,
+						url -> new RefreshingJwkSource(url, retriever, refreshInterval, minRefetchInterval, scheduler, clock));
+	}
+
+	/**
+	 * @param  jwkSource source of the keys to verify signatures with
+	 * @return           a JWT processor verifying RSA and EC signatures with the keys from the provided source (claims are not verified: use
+	 *                   Spring token validators for that)
+	 */
+	public static DefaultJWTProcessor<SecurityContext> getJwtProcessor(JWKSource<SecurityContext> jwkSource) {
+		final var jwtProcessor = new DefaultJWTProcessor<SecurityContext>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(SIGNATURE_ALGORITHMS, jwkSource));
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		return jwtProcessor;
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private URL getJwkSetUrl(IssuerProperties issuer) {
+		try {
+			if (issuer.getJwkSetUri() != null && StringUtils.hasLength(issuer.getJwkSetUri().toString())) {
+				return issuer.getJwkSetUri().toURL();
+			}
+			return getDiscoveredJwkSetUrl(issuer.getLocation());
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException("Invalid JWK-set URI for " + issuer.getLocation(), e);
+		}
+	}
+
+	/*
+	 * Discovery runs inside compute: concurrent requests for the same issuer wait for the discovery in progress instead of issuing their own
+	 * metadata requests.
+	 */
+	private URL getDiscoveredJwkSetUrl(URI issuer) {
+		final var discovery = discoveries.compute(issuer, (location, previous) -> {
+			if (previous != null && (previous.jwkSetUrl() != null || clock.instant().isBefore(previous.attemptedAt().plus(minRefetchInterval)))) {
+				return previous;
+			}
+			final var attemptedAt = clock.instant();
+			try {
+				return new JwkSetUriDiscovery(discoverJwkSetUri(location).toURL(), null, attemptedAt);
+			} catch (IllegalStateException | MalformedURLException e) {
+				return new JwkSetUriDiscovery(null, e, attemptedAt);
+			}
+		});
+		if (discovery.jwkSetUrl() == null) {
+			throw new IllegalStateException(discovery.failure().getMessage(), discovery.failure());
+		}
+		return discovery.jwkSetUrl();
+	}
+
+	private URI discoverJwkSetUri(URI issuer) {
+		final var path = Objects.toString(issuer.getPath(), "");
+		final var base = issuer.getScheme() + "://" + issuer.getRawAuthority();
+		final var metadataUris = new String[] {
+				StringUtils.trimTrailingCharacter(issuer.toString(), '/') + "/.well-known/openid-configuration",
+				base + "/.well-known/oauth-authorization-server" + path };
+		for (final var metadataUri : metadataUris) {
+			try {
+				final var metadata = JSONObjectUtils.parse(retriever.retrieveResource(new URL(metadataUri)).getContent());
+				if (!Objects.equals(metadata.get("issuer"), issuer.toString())) {
+					throw new IllegalStateException("The issuer in " + metadataUri + " does not match " + issuer);
+				}
+				final var jwksUri = JSONObjectUtils.getURI(metadata, "jwks_uri");
+				if (jwksUri != null) {
+					return jwksUri;
+				}
+			} catch (IOException | ParseException e) {
+				// try next metadata end-point
+			}
+		}
+		throw new IllegalStateException("Failed to discover JWK-set URI for " + issuer);
+	}
+
+	private static record JwkSetUriDiscovery(URL jwkSetUrl, Exception failure, Instant attemptedAt) {
+	}
+}
@@ -0,0 +1,70 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * Initializes lazy JWT decoders (OpenID configuration discovery, JWK-set retrieval, ...) in parallel, each on its own daemon thread.
+ * </p>
+ * <p>
+ * The caller waits at most for the provided timeout: decoders which are not ready (or which failed) by then are initialized when the first
+ * token from their issuer is decoded. Warm-up failures are logged and never thrown.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public final class JwtDecodersWarmUp {
+	private static final Log log = LogFactory.getLog(JwtDecodersWarmUp.class);
+
+	private JwtDecodersWarmUp() {
+	}
+
+	/**
+	 * @param decoders lazy decoders by issuer (each supplier is expected to memoize the decoder it builds)
+	 * @param timeout  maximum time to wait for all decoders to be ready. Zero or negative to not wait at all.
+	 */
+	public static void warmUp(Map<String, ? extends Supplier<?>> decoders, Duration timeout) {
+		if (decoders.isEmpty()) {
+			return;
+		}
+		final var threadCount = new AtomicInteger();
+		final var executor = Executors.newFixedThreadPool(decoders.size(), runnable -> {
+			final var thread = new Thread(runnable, "spring-addons-jwt-warm-up-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			final var warmUps = decoders.entrySet().stream().map(decoder -> CompletableFuture.runAsync(() -> decoder.getValue().get(), executor).whenComplete((v, e) -> {
+				if (e == null) {
+					log.debug("JWT decoder ready for " + decoder.getKey());
+				} else {
+					log.warn("JWT decoder warm-up failed for " + decoder.getKey() + " (will retry on first token): " + e.getMessage());
+				}
+			})).toArray(CompletableFuture[]::new);
+
+			if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+				return;
+			}
+			CompletableFuture.allOf(warmUps).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Not all JWT decoders were ready after " + timeout + ", remaining ones are initialized in the background or on first token");
+		} catch (ExecutionException e) {
+			// already logged for the failed issuer(s)
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
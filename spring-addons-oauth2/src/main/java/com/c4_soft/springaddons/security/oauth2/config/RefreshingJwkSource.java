@@ -0,0 +1,165 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.ResourceRetriever;
+
+/**
+ * <p>
+ * JWK source for a remote JWK set which is kept in memory and refreshed in the background:
+ * </p>
+ * <ul>
+ * <li>the JWK set is fetched on first use (or {@link #load()}), then re-fetched every refresh-interval by a scheduled task: request threads
+ * do not pay for the HTTP call when the JWK set expires</li>
+ * <li>if a refresh fails, the last retrieved JWK set is still served (stale-while-revalidate)</li>
+ * <li>when no key matches (unknown "kid" after a key rotation for instance), the JWK set is re-fetched at once, but at most once every
+ * min-refetch-interval to protect the authorization-server from tokens with forged "kid"</li>
+ * <li>if the JWK set was never retrieved, failed attempts are also retried at most once every min-refetch-interval (meanwhile, keys
+ * requests fail without HTTP call)</li>
+ * </ul>
+ *
+ * @author ch4mp
+ */
+public class RefreshingJwkSource implements JWKSource<SecurityContext> {
+	private static final Log log = LogFactory.getLog(RefreshingJwkSource.class);
+
+	private final URL jwkSetUrl;
+	private final ResourceRetriever retriever;
+	private final Duration refreshInterval;
+	private final Duration minRefetchInterval;
+	private final ScheduledExecutorService scheduler;
+	private final Clock clock;
+
+	private final ReentrantLock fetchLock = new ReentrantLock();
+	private volatile JWKSet jwkSet;
+	private volatile Instant lastFetchAttempt = Instant.MIN;
+	private volatile boolean isRefreshScheduled = false;
+
+	public RefreshingJwkSource(
+			URL jwkSetUrl,
+			ResourceRetriever retriever,
+			Duration refreshInterval,
+			Duration minRefetchInterval,
+			ScheduledExecutorService scheduler,
+			Clock clock) {
+		this.jwkSetUrl = jwkSetUrl;
+		this.retriever = retriever;
+		this.refreshInterval = refreshInterval;
+		this.minRefetchInterval = minRefetchInterval;
+		this.scheduler = scheduler;
+		this.clock = clock;
+	}
+
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+		final var current = load();
+		final var keys = jwkSelector.select(current);
+		if (!keys.isEmpty() || !isRefetchAllowed()) {
+			return keys;
+		}
+		return jwkSelector.select(fetch(current, true));
+	}
+
+	/**
+	 * @return                    the JWK set in memory, fetching it if it was never retrieved
+	 * @throws KeySourceException if the JWK set was never retrieved and could not be fetched
+	 */
+	public JWKSet load() throws KeySourceException {
+		final var current = jwkSet;
+		return current == null ? fetch(null, true) : current;
+	}
+
+	/**
+	 * @param  header header of a JWS to verify
+	 * @return        true if selecting the key to verify the JWS would fetch the JWK set (it was never retrieved, or no key matches and a
+	 *                re-fetch is allowed): verification might then block on an HTTP call
+	 */
+	public boolean isFetchRequired(JWSHeader header) {
+		final var current = jwkSet;
+		if (current == null) {
+			return true;
+		}
+		final var matcher = JWKMatcher.forJWSHeader(header);
+		return matcher != null && new JWKSelector(matcher).select(current).isEmpty() && isRefetchAllowed();
+	}
+
+	public URL getJwkSetUrl() {
+		return jwkSetUrl;
+	}
+
+	private boolean isRefetchAllowed() {
+		return !clock.instant().isBefore(lastFetchAttempt.plus(minRefetchInterval));
+	}
+
+	/*
+	 * Single-flight: concurrent callers wait for the fetch in progress and use its result. Rate-limited fetches check again that a fetch is
+	 * allowed once the lock is acquired: a failed fetch leaves the JWK set unchanged and threads which were waiting would re-fetch otherwise.
+	 */
+	private JWKSet fetch(JWKSet previous, boolean isRateLimited) throws KeySourceException {
+		fetchLock.lock();
+		try {
+			final var current = jwkSet;
+			if (current != previous) {
+				return current;
+			}
+			if (isRateLimited && !isRefetchAllowed()) {
+				if (current == null) {
+					throw new RemoteKeySourceException(
+							"JWK set from " + jwkSetUrl + " is not available and retrieval was attempted less than " + minRefetchInterval + " ago",
+							null);
+				}
+				return current;
+			}
+			lastFetchAttempt = clock.instant();
+			try {
+				final var fetched = JWKSet.parse(retriever.retrieveResource(jwkSetUrl).getContent());
+				jwkSet = fetched;
+				scheduleRefresh();
+				return fetched;
+			} catch (IOException | ParseException e) {
+				if (current != null) {
+					log.warn("Failed to refresh JWK set from " + jwkSetUrl + ", keeping previous one: " + e.getMessage());
+					return current;
+				}
+				throw new RemoteKeySourceException("Failed to retrieve JWK set from " + jwkSetUrl + ": " + e.getMessage(), e);
+			}
+		} finally {
+			fetchLock.unlock();
+		}
+	}
+
+	private void scheduleRefresh() {
+		if (isRefreshScheduled || refreshInterval.isZero() || refreshInterval.isNegative()) {
+			return;
+		}
+		isRefreshScheduled = true;
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				fetch(jwkSet, false);
+			} catch (KeySourceException | RuntimeException e) {
+				log.warn("Background refresh of JWK set from " + jwkSetUrl + " failed: " + e.getMessage());
+			}
+		}, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+}
@@ -1,6 +1,7 @@
 package com.c4_soft.springaddons.security.oauth2.config;
 
 import java.net.URI;
+import java.time.Duration;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -18,13 +19,39 @@ import lombok.Data;
  * com.c4-soft.springaddons.security.cors[0].path=/**
  * com.c4-soft.springaddons.security.cors[0].allowed-origins=*
  * com.c4-soft.springaddons.security.cors[0].allowedOrigins=*
+ * com.c4-soft.springaddons.security.cors[0].allowed-origin-patterns=
  * com.c4-soft.springaddons.security.cors[0].allowedMethods=*
  * com.c4-soft.springaddons.security.cors[0].allowedHeaders=*
  * com.c4-soft.springaddons.security.cors[0].exposedHeaders=*
  * com.c4-soft.springaddons.security.csrf-enabled=true
  * com.c4-soft.springaddons.security.permit-all=
+ * com.c4-soft.springaddons.security.permit-all-skips-bearer-token=false
  * com.c4-soft.springaddons.security.redirect-to-login-if-unauthorized-on-restricted-content=true
+ * com.c4-soft.springaddons.security.access-denied-problem-details=false
  * com.c4-soft.springaddons.security.statless-sessions=true
+ * com.c4-soft.springaddons.security.authorities-pool-max-size=0
+ * com.c4-soft.springaddons.security.jwt.warm-up.enabled=false
+ * com.c4-soft.springaddons.security.jwt.warm-up.timeout=10s
+ * com.c4-soft.springaddons.security.jwt.jwk-set.refresh-interval=5m
+ * com.c4-soft.springaddons.security.jwt.jwk-set.min-refetch-interval=30s
+ * com.c4-soft.springaddons.security.jwt.jwk-set.connect-timeout=5s
+ * com.c4-soft.springaddons.security.jwt.jwk-set.read-timeout=5s
+ * com.c4-soft.springaddons.security.jwt.authentication-cache.enabled=false
+ * com.c4-soft.springaddons.security.jwt.authentication-cache.max-size=10000
+ * com.c4-soft.springaddons.security.jwt.authentication-cache.max-ttl=5m
+ * com.c4-soft.springaddons.security.jwt.signature-cache.enabled=false
+ * com.c4-soft.springaddons.security.jwt.signature-cache.max-size=10000
+ * com.c4-soft.springaddons.security.jwt.signature-cache.max-ttl=5m
+ * com.c4-soft.springaddons.security.introspection.cache.enabled=false
+ * com.c4-soft.springaddons.security.introspection.cache.max-size=10000
+ * com.c4-soft.springaddons.security.introspection.cache.max-ttl=5m
+ * com.c4-soft.springaddons.security.introspection.local-jwt-validation=false
+ * com.c4-soft.springaddons.security.introspection.pool.max-connections=50
+ * com.c4-soft.springaddons.security.introspection.pool.pending-acquire-max-count=500
+ * com.c4-soft.springaddons.security.introspection.pool.pending-acquire-timeout=10s
+ * com.c4-soft.springaddons.security.introspection.pool.max-idle-time=30s
+ * com.c4-soft.springaddons.security.introspection.pool.eviction-interval=30s
+ * com.c4-soft.springaddons.security.introspection.pool.keep-alive=true
  * </pre>
  *
  * @author ch4mp
@@ -39,16 +66,39 @@ public class SpringAddonsSecurityProperties {
 
 	private String[] permitAll = { "/actuator/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/webjars/swagger-ui/**", "/favicon.ico" };
 
+	/**
+	 * If true, Bearer tokens are ignored on "permit-all" routes (requests are anonymous there, even with a valid token). If false, tokens are
+	 * resolved and decoded on "permit-all" routes too, so that public endpoints can adapt to authenticated users.
+	 */
+	private boolean permitAllSkipsBearerToken = false;
+
 	private boolean redirectToLoginIfUnauthorizedOnRestrictedContent = false;
 
+	/**
+	 * If true, reactive resource-servers answer access-denied with an RFC 7807 application/problem+json body instead of a text/plain message
+	 */
+	private boolean accessDeniedProblemDetails = false;
+
 	private boolean statlessSessions = true;
 
 	private Csrf csrf = Csrf.DEFAULT;
 
+	private int authoritiesPoolMaxSize = 0;
+
+	private JwtProperties jwt = new JwtProperties();
+
+	private IntrospectionProperties introspection = new IntrospectionProperties();
+
 	@Data
 	public static class CorsProperties {
 		private String path = "/**";
 		private String[] allowedOrigins = { "*" };
+
+		/**
+		 * Origin patterns like "https://*.c4-soft.com" (see {@link org.springframework.web.cors.CorsConfiguration#setAllowedOriginPatterns}).
+		 * Wildcards in {@link #allowedOrigins} are not expanded.
+		 */
+		private String[] allowedOriginPatterns = {};
 		private String[] allowedMethods = { "*" };
 		private String[] allowedHeaders = { "*" };
 		private String[] exposedHeaders = { "*" };
@@ -74,6 +124,85 @@ public class SpringAddonsSecurityProperties {
 		private Case caze = Case.UNCHANGED;
 	}
 
+	/**
+	 * Configuration for JWT decoding (ignored by introspecting resource-servers, except for jwk-set when introspection local-jwt-validation is
+	 * enabled)
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class JwtProperties {
+		private WarmUpProperties warmUp = new WarmUpProperties();
+		private JwkSetProperties jwkSet = new JwkSetProperties();
+		private TokenCacheProperties authenticationCache = new TokenCacheProperties();
+		private TokenCacheProperties signatureCache = new TokenCacheProperties();
+	}
+
+	/**
+	 * JWK sets are kept in memory and refreshed in the background every refresh-interval. When a token is signed with an unknown key, the JWK
+	 * set is re-fetched at most once every min-refetch-interval.
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class JwkSetProperties {
+		private Duration refreshInterval = Duration.ofMinutes(5);
+		private Duration minRefetchInterval = Duration.ofSeconds(30);
+		private Duration connectTimeout = Duration.ofSeconds(5);
+		private Duration readTimeout = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * JWT decoders are created lazily, on first token from each issuer. If enabled, decoders are initialized in parallel at startup, waiting at
+	 * most for timeout (zero to not wait).
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class WarmUpProperties {
+		private boolean enabled = false;
+		private Duration timeout = Duration.ofSeconds(10);
+	}
+
+	/**
+	 * Configuration for access-token introspection (ignored by JWT decoding resource-servers)
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class IntrospectionProperties {
+		private boolean localJwtValidation = false;
+		private TokenCacheProperties cache = new TokenCacheProperties();
+		private ConnectionPoolProperties pool = new ConnectionPoolProperties();
+	}
+
+	/**
+	 * Configuration for the HTTP connection pool dedicated to introspection requests (used by reactive resource-servers only)
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class ConnectionPoolProperties {
+		private int maxConnections = 50;
+		private int pendingAcquireMaxCount = 500;
+		private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+		private Duration maxIdleTime = Duration.ofSeconds(30);
+		private Duration evictionInterval = Duration.ofSeconds(30);
+		private boolean keepAlive = true;
+	}
+
+	/**
+	 * Configuration for caches keyed by access-token. Entries expire at the earliest of token expiry and max-ttl.
+	 *
+	 * @author ch4mp
+	 */
+	@Data
+	public static class TokenCacheProperties {
+		private boolean enabled = false;
+		private int maxSize = 10000;
+		private Duration maxTtl = Duration.ofMinutes(5);
+	}
+
 	public static enum Case {
 		UNCHANGED, UPPER, LOWER
 	}
@@ -1,23 +1,56 @@
 package com.c4_soft.springaddons.security.oauth2.spring;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.ClassUtils;
 
-import lombok.RequiredArgsConstructor;
-
-@RequiredArgsConstructor
+/**
+ * <p>
+ * Method security expression handler using a custom {@link C4MethodSecurityExpressionRoot}.
+ * </p>
+ * <p>
+ * Most specific methods are resolved once per (method, target class) pair and expressions are parsed with a SpEL compiler mode
+ * ({@link SpelCompilerMode#MIXED} by default): once warmed, {@code @PreAuthorize}, {@code @PostFilter}, etc. are evaluated as bytecode
+ * rather than interpreted reflectively.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
 public class C4MethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
     private final Supplier<C4MethodSecurityExpressionRoot> expressionRootSupplier;
+    private final Map<MethodClassKey, Method> specificMethods = new ConcurrentHashMap<>();
+
+    public C4MethodSecurityExpressionHandler(Supplier<C4MethodSecurityExpressionRoot> expressionRootSupplier) {
+        this(expressionRootSupplier, SpelCompilerMode.MIXED);
+    }
+
+    /**
+     * @param expressionRootSupplier creates a new expression root for each invocation (roots are stateful: filter and return objects)
+     * @param compilerMode           SpEL compiler mode for security expressions. {@link SpelCompilerMode#OFF} restores Spring default
+     *                               interpreted evaluation.
+     */
+    public C4MethodSecurityExpressionHandler(
+            Supplier<C4MethodSecurityExpressionRoot> expressionRootSupplier,
+            SpelCompilerMode compilerMode) {
+        this.expressionRootSupplier = expressionRootSupplier;
+        setExpressionParser(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, ClassUtils.getDefaultClassLoader())));
+    }
 
     /**
      * Creates the root object for expression evaluation.
@@ -31,7 +64,7 @@ public class C4MethodSecurityExpressionHandler extends DefaultMethodSecurityExpr
     @Override
     public EvaluationContext createEvaluationContext(Supplier<Authentication> authentication, MethodInvocation mi) {
         var root = createSecurityExpressionRoot(authentication, mi);
-        var ctx = new C4MethodSecurityEvaluationContext(root, mi, getParameterNameDiscoverer());
+        var ctx = new C4MethodSecurityEvaluationContext(root, getSpecificMethod(mi), mi, getParameterNameDiscoverer());
         ctx.setBeanResolver(getBeanResolver());
         return ctx;
     }
@@ -39,6 +72,7 @@ public class C4MethodSecurityExpressionHandler extends DefaultMethodSecurityExpr
     private MethodSecurityExpressionOperations createSecurityExpressionRoot(Supplier<Authentication> authentication,
             MethodInvocation invocation) {
         final var root = expressionRootSupplier.get();
+        root.setAuthenticationSupplier(authentication);
         root.setThis(invocation.getThis());
         root.setPermissionEvaluator(getPermissionEvaluator());
         root.setTrustResolver(getTrustResolver());
@@ -47,15 +81,17 @@ public class C4MethodSecurityExpressionHandler extends DefaultMethodSecurityExpr
         return root;
     }
 
+    Method getSpecificMethod(MethodInvocation mi) {
+        final var method = mi.getMethod();
+        final var targetClass = mi.getThis() == null ? null : AopProxyUtils.ultimateTargetClass(mi.getThis());
+        return specificMethods.computeIfAbsent(new MethodClassKey(method, targetClass), key -> AopUtils.getMostSpecificMethod(method, targetClass));
+    }
+
     static class C4MethodSecurityEvaluationContext extends MethodBasedEvaluationContext {
 
-        C4MethodSecurityEvaluationContext(MethodSecurityExpressionOperations root, MethodInvocation mi,
+        C4MethodSecurityEvaluationContext(MethodSecurityExpressionOperations root, Method specificMethod, MethodInvocation mi,
                 ParameterNameDiscoverer parameterNameDiscoverer) {
-            super(root, getSpecificMethod(mi), mi.getArguments(), parameterNameDiscoverer);
-        }
-
-        private static Method getSpecificMethod(MethodInvocation mi) {
-            return AopUtils.getMostSpecificMethod(mi.getMethod(), AopProxyUtils.ultimateTargetClass(mi.getThis()));
+            super(root, specificMethod, mi.getArguments(), parameterNameDiscoverer);
         }
 
     }
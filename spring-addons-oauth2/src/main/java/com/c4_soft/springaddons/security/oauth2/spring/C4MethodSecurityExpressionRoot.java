@@ -1,25 +1,99 @@
 package com.c4_soft.springaddons.security.oauth2.spring;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.DenyAllPermissionEvaluator;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.access.hierarchicalroles.NullRoleHierarchy;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import com.c4_soft.springaddons.security.oauth2.AuthoritySet;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
 
 /**
+ * <p>
  * org.springframework.security.access.expression.method.MethodSecurityExpressionRoot is protected.
+ * </p>
+ * <p>
+ * Authentication is resolved lazily, when an expression first accesses it, and then memoized for the rest of the evaluation: expressions
+ * like {@code permitAll} or checks on method arguments only never look up the security context.
+ * </p>
+ * <p>
+ * Same operations as org.springframework.security.access.expression.SecurityExpressionRoot, but for {@link OAuthentication}, {@code hasAuthority},
+ * {@code hasRole} and their "any" variants are answered from an {@link AuthoritySet} (bit tests). Other {@link Authentication} implementations
+ * are checked against the set of their authority names, as in Spring: their authorities are not added to the shared
+ * {@link com.c4_soft.springaddons.security.oauth2.AuthorityRegistry}.
+ * </p>
  *
  * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
  */
-public class C4MethodSecurityExpressionRoot extends SecurityExpressionRoot implements MethodSecurityExpressionOperations {
+public class C4MethodSecurityExpressionRoot implements MethodSecurityExpressionOperations {
+
+	public final boolean permitAll = true;
+	public final boolean denyAll = false;
+	public final String read = "read";
+	public final String write = "write";
+	public final String create = "create";
+	public final String delete = "delete";
+	public final String admin = "administration";
+
+	private Supplier<Authentication> authenticationSupplier;
+	private Authentication authentication;
+	private Predicate<String> grantedAuthorities;
+	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+	private RoleHierarchy roleHierarchy;
+	private String defaultRolePrefix = "ROLE_";
+	private PermissionEvaluator permissionEvaluator = new DenyAllPermissionEvaluator();
 
 	private Object filterObject;
 	private Object returnObject;
 	private Object target;
 
+	/**
+	 * Authentication is taken from the {@link SecurityContextHolder} unless {@link C4MethodSecurityExpressionHandler} provides its own
+	 * supplier before evaluation
+	 */
 	public C4MethodSecurityExpressionRoot() {
-		super(SecurityContextHolder.getContext().getAuthentication());
+		this(() -> SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	/**
+	 * @param authentication called at most once, when an expression first accesses authentication
+	 */
+	public C4MethodSecurityExpressionRoot(Supplier<Authentication> authentication) {
+		this.authenticationSupplier = authentication;
+	}
+
+	/**
+	 * Replaces the source of authentication. Has no effect once authentication was accessed by an expression.
+	 *
+	 * @param authentication called at most once, when an expression first accesses authentication
+	 */
+	void setAuthenticationSupplier(Supplier<Authentication> authentication) {
+		this.authenticationSupplier = authentication;
+	}
+
+	@Override
+	public final Authentication getAuthentication() {
+		if (authentication == null) {
+			final var resolved = authenticationSupplier.get();
+			Assert.notNull(resolved, "Authentication object cannot be null");
+			authentication = resolved;
+		}
+		return authentication;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -27,6 +101,120 @@ public class C4MethodSecurityExpressionRoot extends SecurityExpressionRoot imple
 		return Optional.ofNullable(getAuthentication()).map(a -> a.getClass().isAssignableFrom(expectedAuthType) ? (T) a : null).flatMap(Optional::ofNullable);
 	}
 
+	/**
+	 * @return test for granted authorities (reachable ones if a role hierarchy is set), built once per root: bit tests on an
+	 *         {@link AuthoritySet} for {@link OAuthentication}, lookups in a set of authority names otherwise
+	 */
+	private Predicate<String> getGrantedAuthorities() {
+		if (grantedAuthorities == null) {
+			final var auth = getAuthentication();
+			final var isHierarchical = roleHierarchy != null && !(roleHierarchy instanceof NullRoleHierarchy);
+			if (auth instanceof OAuthentication<?> oauth) {
+				grantedAuthorities = (isHierarchical ? AuthoritySet.of(roleHierarchy.getReachableGrantedAuthorities(auth.getAuthorities()))
+						: oauth.getAuthoritySet())::contains;
+			} else {
+				final Collection<? extends GrantedAuthority> authorities =
+						isHierarchical ? roleHierarchy.getReachableGrantedAuthorities(auth.getAuthorities()) : auth.getAuthorities();
+				grantedAuthorities = AuthorityUtils.authorityListToSet(authorities)::contains;
+			}
+		}
+		return grantedAuthorities;
+	}
+
+	@Override
+	public final boolean hasAuthority(String authority) {
+		return getGrantedAuthorities().test(authority);
+	}
+
+	@Override
+	public final boolean hasAnyAuthority(String... authorities) {
+		final var granted = getGrantedAuthorities();
+		for (final var authority : authorities) {
+			if (granted.test(authority)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public final boolean hasRole(String role) {
+		return getGrantedAuthorities().test(getRoleWithDefaultPrefix(defaultRolePrefix, role));
+	}
+
+	@Override
+	public final boolean hasAnyRole(String... roles) {
+		final var granted = getGrantedAuthorities();
+		for (final var role : roles) {
+			if (granted.test(getRoleWithDefaultPrefix(defaultRolePrefix, role))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public final boolean permitAll() {
+		return true;
+	}
+
+	@Override
+	public final boolean denyAll() {
+		return false;
+	}
+
+	@Override
+	public final boolean isAnonymous() {
+		return trustResolver.isAnonymous(getAuthentication());
+	}
+
+	@Override
+	public final boolean isAuthenticated() {
+		return !isAnonymous();
+	}
+
+	@Override
+	public final boolean isRememberMe() {
+		return trustResolver.isRememberMe(getAuthentication());
+	}
+
+	@Override
+	public final boolean isFullyAuthenticated() {
+		final var auth = getAuthentication();
+		return !trustResolver.isAnonymous(auth) && !trustResolver.isRememberMe(auth);
+	}
+
+	public Object getPrincipal() {
+		return getAuthentication().getPrincipal();
+	}
+
+	@Override
+	public boolean hasPermission(Object target, Object permission) {
+		return permissionEvaluator.hasPermission(getAuthentication(), target, permission);
+	}
+
+	@Override
+	public boolean hasPermission(Object targetId, String targetType, Object permission) {
+		return permissionEvaluator.hasPermission(getAuthentication(), (Serializable) targetId, targetType, permission);
+	}
+
+	public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+		this.trustResolver = trustResolver;
+	}
+
+	public void setRoleHierarchy(RoleHierarchy roleHierarchy) {
+		this.roleHierarchy = roleHierarchy;
+		this.grantedAuthorities = null;
+	}
+
+	public void setDefaultRolePrefix(String defaultRolePrefix) {
+		this.defaultRolePrefix = defaultRolePrefix;
+	}
+
+	public void setPermissionEvaluator(PermissionEvaluator permissionEvaluator) {
+		this.permissionEvaluator = permissionEvaluator;
+	}
+
 	@Override
 	public void setFilterObject(Object filterObject) {
 		this.filterObject = filterObject;
@@ -56,4 +244,11 @@ public class C4MethodSecurityExpressionRoot extends SecurityExpressionRoot imple
 		return target;
 	}
 
+	private static String getRoleWithDefaultPrefix(String defaultRolePrefix, String role) {
+		if (role == null || !StringUtils.hasLength(defaultRolePrefix) || role.startsWith(defaultRolePrefix)) {
+			return role;
+		}
+		return defaultRolePrefix + role;
+	}
+
 }
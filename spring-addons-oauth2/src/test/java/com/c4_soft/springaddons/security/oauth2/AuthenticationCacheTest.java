@@ -0,0 +1,57 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+public class AuthenticationCacheTest {
+	private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("NICE"));
+
+	@Test
+	public void whenJwtAuthenticationIsCachedThenEachGetReturnsANewCopyWithRequestDetails() {
+		final var exp = Instant.now().plusSeconds(60);
+		final var jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("ch4mpy").issuedAt(exp.minusSeconds(120)).expiresAt(exp).build();
+		final var cache = new AuthenticationCache(new TokenCache<>(10, Duration.ofMinutes(5)));
+
+		cache.put(bearer("first"), new JwtAuthenticationToken(jwt, AUTHORITIES, "ch4mpy"));
+		final var first = cache.get(bearer("second"));
+		final var second = cache.get(bearer("third"));
+
+		assertThat(first).isInstanceOf(JwtAuthenticationToken.class).isNotSameAs(second);
+		assertThat(first.getDetails()).isEqualTo("second");
+		assertThat(second.getDetails()).isEqualTo("third");
+		assertThat(((JwtAuthenticationToken) second).getToken()).isSameAs(jwt);
+	}
+
+	@Test
+	public void whenExpIsEpochSecondsClaimThenItIsTheExpiry() {
+		final var authentication = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy", "exp", 1700000000L)), AUTHORITIES, "token");
+
+		assertThat(AuthenticationCache.getExpiresAt(authentication)).isEqualTo(Instant.ofEpochSecond(1700000000L));
+	}
+
+	@Test
+	public void whenAuthenticationTypeCantBeCopiedThenItIsNotCached() {
+		final var cache = new AuthenticationCache(new TokenCache<>(10, Duration.ofMinutes(5)));
+
+		cache.put(bearer(null), new TestingAuthenticationToken("ch4mpy", "token", "NICE"));
+
+		assertThat(cache.get(bearer(null))).isNull();
+	}
+
+	private static BearerTokenAuthenticationToken bearer(Object details) {
+		final var bearer = new BearerTokenAuthenticationToken("token");
+		bearer.setDetails(details);
+		return bearer;
+	}
+}
@@ -0,0 +1,54 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public class AuthoritySetTest {
+
+	@Test
+	public void whenAuthoritiesAreGrantedThenTheyAreContained() {
+		final var granted = AuthoritySet.of(new TestingAuthenticationToken("ch4mpy", "pwd", "NICE", "ROLE_AUTHORIZED_PERSONNEL"));
+
+		assertThat(granted.contains("NICE")).isTrue();
+		assertThat(granted.contains("ROLE_AUTHORIZED_PERSONNEL")).isTrue();
+		assertThat(granted.contains("AUTHORIZED_PERSONNEL")).isFalse();
+		assertThat(granted.contains("never-registered-" + System.nanoTime())).isFalse();
+		assertThat(granted.contains(null)).isFalse();
+		assertThat(granted.containsAny("SUPER_COOL", "NICE")).isTrue();
+		assertThat(granted.containsAny("SUPER_COOL")).isFalse();
+		assertThat(granted.containsAny(AuthoritySet.of("SUPER_COOL", "ROLE_AUTHORIZED_PERSONNEL"))).isTrue();
+		assertThat(granted.containsAny(AuthoritySet.of("SUPER_COOL"))).isFalse();
+		assertThat(granted.containsAny(AuthoritySet.EMPTY)).isFalse();
+		assertThat(AuthoritySet.of(List.of()).isEmpty()).isTrue();
+		assertThat(AuthoritySet.EMPTY.contains("NICE")).isFalse();
+	}
+
+	@Test
+	public void whenIndexesExceedOneWordThenBitsAreStillFound() {
+		final var authorities = new String[130];
+		for (var i = 0; i < authorities.length; ++i) {
+			authorities[i] = "AUTHORITY_" + i;
+		}
+		final var granted = AuthoritySet.of(authorities[129], authorities[3]);
+
+		assertThat(AuthoritySet.of(authorities).containsAny(granted)).isTrue();
+		assertThat(granted.contains(authorities[129])).isTrue();
+		assertThat(granted.contains(authorities[3])).isTrue();
+		assertThat(granted.contains(authorities[65])).isFalse();
+		assertThat(AuthorityRegistry.indexOf(authorities[129])).isGreaterThanOrEqualTo(0);
+	}
+
+	@Test
+	public void whenAuthenticationIsAnOAuthenticationThenItsAuthoritySetIsReused() {
+		final var auth = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(new SimpleGrantedAuthority("NICE")), "machin.truc.chose");
+
+		assertThat(AuthoritySet.of(auth)).isSameAs(auth.getAuthoritySet());
+		assertThat(auth.getAuthoritySet().contains("NICE")).isTrue();
+	}
+}
@@ -0,0 +1,171 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public class CompactSerializationTest {
+
+	@Test
+	public void whenOAuthenticationIsSerializedThenClaimsAuthoritiesAndTokenAreRestored() throws Exception {
+		final var authentication = new OAuthentication<>(new OpenidClaimSet(claims()), authorities(), "Bearer machin.truc.chose");
+
+		final var restored = (OAuthentication<?>) deserialize(serialize(authentication));
+
+		assertThat(restored.getClass()).isEqualTo(OAuthentication.class);
+		assertThat(restored.getTokenString()).isEqualTo("machin.truc.chose");
+		assertThat(restored.getAuthorities()).containsExactlyElementsOf(authentication.getAuthorities());
+		assertThat(restored.getClaims()).isInstanceOf(OpenidClaimSet.class);
+		assertThat(((OpenidClaimSet) restored.getClaims()).getDelegate()).isEqualTo(claims());
+		assertThat(((OpenidClaimSet) restored.getClaims()).getSubject()).isEqualTo("ch4mpy");
+		assertThat(restored.isAuthenticated()).isTrue();
+	}
+
+	@Test
+	public void whenClaimSetSpecializationIsSerializedThenItIsRestoredWithItsType() throws Exception {
+		final var claimSet = new CustomClaimSet(claims());
+
+		final var restored = (CustomClaimSet) deserialize(serialize(claimSet));
+
+		assertThat(restored.getDelegate()).isEqualTo(claims());
+		assertThat(restored.getRoles()).containsExactly("NICE", "AUTHOR");
+	}
+
+	@Test
+	public void whenOAuthenticationIsSerializedThenItIsSmallerThanDefaultJavaSerializationOfTheSameData() throws Exception {
+		final var authentication = new OAuthentication<>(new OpenidClaimSet(claims()), authorities(), "machin.truc.chose");
+
+		final var legacy = new LegacyAuthentication(
+				"machin.truc.chose",
+				Collections.unmodifiableMap(new HashMap<>(claims())),
+				Collections.unmodifiableList(new ArrayList<>(authorities())));
+
+		assertThat(serialize(authentication).length).isLessThan(serialize(legacy).length / 2);
+	}
+
+	@Test
+	public void whenStringLengthIsNegativeThenInvalidObjectExceptionIsThrown() throws Exception {
+		// token string present, new string, length -1
+		final var corrupted = blockData(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+
+		assertThatThrownBy(() -> new CompactSerialization.OAuthenticationForm().readExternal(corrupted)).isInstanceOf(InvalidObjectException.class);
+	}
+
+	@Test
+	public void whenStringLengthIsOversizedThenInvalidObjectExceptionIsThrown() throws Exception {
+		// token string present, new string, length Integer.MAX_VALUE
+		final var corrupted = blockData(1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+
+		assertThatThrownBy(() -> new CompactSerialization.OAuthenticationForm().readExternal(corrupted)).isInstanceOf(InvalidObjectException.class);
+	}
+
+	@Test
+	public void whenStringCodeIsNegativeThenInvalidObjectExceptionIsThrown() throws Exception {
+		// token string present, string code -1
+		final var corrupted = blockData(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+
+		assertThatThrownBy(() -> new CompactSerialization.OAuthenticationForm().readExternal(corrupted)).isInstanceOf(InvalidObjectException.class);
+	}
+
+	@Test
+	public void whenAuthoritiesCountIsNegativeThenInvalidObjectExceptionIsThrown() throws Exception {
+		// no token string, claims in default form (null), authorities count -1
+		final var bytes = new ByteArrayOutputStream();
+		try (final var out = new ObjectOutputStream(bytes)) {
+			out.writeByte(CompactSerialization.VERSION);
+			out.writeBoolean(false);
+			out.writeBoolean(false);
+			out.writeObject(null);
+			for (final var b : new int[] { 0xFF, 0xFF, 0xFF, 0xFF, 0x0F }) {
+				out.writeByte(b);
+			}
+		}
+		final var corrupted = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertThatThrownBy(() -> new CompactSerialization.OAuthenticationForm().readExternal(corrupted)).isInstanceOf(InvalidObjectException.class);
+	}
+
+	static Map<String, Object> claims() {
+		final var claims = new LinkedHashMap<String, Object>();
+		claims.put("iss", "https://localhost:8443/realms/master");
+		claims.put("sub", "ch4mpy");
+		claims.put("aud", List.of("spring-addons"));
+		claims.put("exp", Instant.ofEpochSecond(1700000000L));
+		claims.put("iat", Instant.ofEpochSecond(1699999700L));
+		claims.put("email_verified", true);
+		claims.put("preferred_username", "ch4mpy");
+		claims.put("realm_access", Map.of("roles", List.of("NICE", "AUTHOR")));
+		claims.put("scope", "openid profile email");
+		claims.put("nonce", null);
+		return claims;
+	}
+
+	static Collection<GrantedAuthority> authorities() {
+		return List.of(new SimpleGrantedAuthority("NICE"), new SimpleGrantedAuthority("AUTHOR"));
+	}
+
+	static byte[] serialize(Object object) throws IOException {
+		final var bytes = new ByteArrayOutputStream();
+		try (final var out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	/*
+	 * Version byte followed by the provided bytes, as read by the compact forms
+	 */
+	static ObjectInputStream blockData(int... data) throws IOException {
+		final var bytes = new ByteArrayOutputStream();
+		try (final var out = new ObjectOutputStream(bytes)) {
+			out.writeByte(CompactSerialization.VERSION);
+			for (final var b : data) {
+				out.writeByte(b);
+			}
+		}
+		return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (final var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+
+	public static class CustomClaimSet extends OpenidClaimSet {
+		private static final long serialVersionUID = 5422813587045451387L;
+
+		public CustomClaimSet(Map<String, Object> claims) {
+			super(claims);
+		}
+
+		@SuppressWarnings("unchecked")
+		public List<String> getRoles() {
+			return ((Map<String, List<String>>) get("realm_access")).get("roles");
+		}
+	}
+
+	static record LegacyAuthentication(String tokenString, Map<String, Object> claims, Collection<GrantedAuthority> authorities)
+			implements
+			Serializable {
+	}
+}
@@ -0,0 +1,33 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class OAuthenticationTest {
+
+	@Test
+	public void whenTokenStringHasBearerPrefixThenItIsRemovedWhateverTheCase() {
+		assertThat(authentication("Bearer machin.truc.chose").getTokenString()).isEqualTo("machin.truc.chose");
+		assertThat(authentication("bEaReR machin.truc.chose").getTokenString()).isEqualTo("machin.truc.chose");
+		assertThat(authentication("machin.truc.chose").getTokenString()).isEqualTo("machin.truc.chose");
+		assertThat(authentication("Bear").getTokenString()).isEqualTo("Bear");
+		assertThat(authentication(null).getTokenString()).isNull();
+	}
+
+	@Test
+	public void whenBearerHeaderIsRequestedTwiceThenSameInstanceIsReturned() {
+		final var authentication = authentication("bearer machin.truc.chose");
+
+		assertThat(authentication.getBearerHeader()).isEqualTo("Bearer machin.truc.chose");
+		assertThat(authentication.getBearerHeader()).isSameAs(authentication.getBearerHeader());
+		assertThat(authentication(null).getBearerHeader()).isNull();
+	}
+
+	private static OAuthentication<OpenidClaimSet> authentication(String tokenString) {
+		return new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(), tokenString);
+	}
+}
@@ -0,0 +1,153 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class TokenCacheTest {
+
+	@Test
+	public void whenEntryIsPutThenItIsReturnedUntilItExpires() {
+		final var now = Instant.now();
+		final var cache = new TokenCache<String>(10, Duration.ofMinutes(5), Clock.fixed(now, ZoneOffset.UTC));
+		cache.put("a.b.c", "abc", now.plusSeconds(60));
+
+		assertThat(cache.get("a.b.c")).isEqualTo("abc");
+		assertThat(cache.get("d.e.f")).isNull();
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+
+		final var later = new TokenCache<String>(10, Duration.ofMinutes(5), Clock.fixed(now.plusSeconds(61), ZoneOffset.UTC));
+		later.put("a.b.c", "abc", now.plusSeconds(60));
+		assertThat(later.get("a.b.c")).isNull();
+	}
+
+	@Test
+	public void whenTokenExpiresAfterMaxTtlThenEntryExpiresAtMaxTtl() {
+		final var clock = new MutableClock(Instant.now());
+		final var cache = new TokenCache<String>(10, Duration.ofSeconds(30), clock);
+		cache.put("a.b.c", "abc", clock.instant().plusSeconds(3600));
+
+		clock.now = clock.now.plusSeconds(29);
+		assertThat(cache.get("a.b.c")).isEqualTo("abc");
+
+		clock.now = clock.now.plusSeconds(1);
+		assertThat(cache.get("a.b.c")).isNull();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void whenMaxSizeIsExceededThenOldestEntriesAreEvicted() {
+		final var cache = new TokenCache<Integer>(3, Duration.ofMinutes(5));
+		for (var i = 0; i < 5; ++i) {
+			cache.put("token-" + i, i, null);
+		}
+
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.getEvictionCount()).isEqualTo(2);
+		assertThat(cache.get("token-0")).isNull();
+		assertThat(cache.get("token-1")).isNull();
+		assertThat(cache.get("token-4")).isEqualTo(4);
+	}
+
+	@Test
+	public void whenEntriesAreInvalidatedOrClearedThenTheyDoNotCountAgainstMaxSize() {
+		final var cache = new TokenCache<Integer>(3, Duration.ofMinutes(5));
+		for (var i = 0; i < 3; ++i) {
+			cache.put("token-" + i, i, null);
+		}
+
+		cache.invalidate("token-0");
+		cache.put("token-3", 3, null);
+		assertThat(cache.getEvictionCount()).isZero();
+		assertThat(cache.get("token-1")).isEqualTo(1);
+
+		cache.clear();
+		assertThat(cache.size()).isZero();
+		for (var i = 4; i < 7; ++i) {
+			cache.put("token-" + i, i, null);
+		}
+		assertThat(cache.getEvictionCount()).isZero();
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.get("token-4")).isEqualTo(4);
+	}
+
+	@Test
+	public void whenEntryExpiresThenItNoLongerCountsAgainstMaxSize() {
+		final var clock = new MutableClock(Instant.now());
+		final var cache = new TokenCache<Integer>(2, Duration.ofMinutes(5), clock);
+		cache.put("token-0", 0, clock.instant().plusSeconds(10));
+		cache.put("token-1", 1, null);
+
+		clock.now = clock.now.plusSeconds(10);
+		assertThat(cache.get("token-0")).isNull();
+		cache.put("token-2", 2, null);
+
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("token-1")).isEqualTo(1);
+		assertThat(cache.get("token-2")).isEqualTo(2);
+	}
+
+	@Test
+	public void whenSameTokenIsPutConcurrentlyThenReplacedEntriesDoNotCountAgainstMaxSize() throws Exception {
+		final var cache = new TokenCache<Integer>(3, Duration.ofMinutes(5));
+		final var executor = Executors.newFixedThreadPool(4);
+		try {
+			final var puts = new ArrayList<Callable<Void>>();
+			for (var i = 0; i < 1000; ++i) {
+				final var value = i;
+				puts.add(() -> {
+					cache.put("token-0", value, null);
+					return null;
+				});
+			}
+			for (final var put : executor.invokeAll(puts)) {
+				put.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		cache.put("token-1", 1, null);
+		cache.put("token-2", 2, null);
+
+		assertThat(cache.getEvictionCount()).isZero();
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.get("token-0")).isNotNull();
+		cache.put("token-3", 3, null);
+		assertThat(cache.get("token-0")).isNull();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	private static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(java.time.ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
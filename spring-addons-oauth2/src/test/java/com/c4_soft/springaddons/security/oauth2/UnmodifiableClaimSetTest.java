@@ -0,0 +1,103 @@
+package com.c4_soft.springaddons.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+public class UnmodifiableClaimSetTest {
+
+	@Test
+	public void whenClaimsAreImmutableThenTheyAreNotCopied() {
+		final Map<String, Object> immutable = Map.of("sub", "ch4mpy");
+		final var claimSet = new OpenidClaimSet(immutable);
+
+		assertThat(claimSet.getDelegate()).isSameAs(immutable);
+		assertThat(new UnmodifiableClaimSet(claimSet).getDelegate()).isSameAs(immutable);
+		final Map<String, Object> copy = Map.copyOf(Map.of("sub", "ch4mpy", "scope", "openid"));
+		assertThat(new UnmodifiableClaimSet(copy).getDelegate()).isSameAs(copy);
+	}
+
+	@Test
+	public void whenClaimsAreJwtOnesThenTheyAreNotCopied() {
+		final var jwt = Jwt.withTokenValue("token").header("alg", "RS256").claim("sub", "ch4mpy").claim("scope", "openid").build();
+		final var claimSet = new OpenidClaimSet(jwt);
+
+		assertThat(claimSet.getDelegate()).isSameAs(jwt.getClaims());
+		assertThat(claimSet.getSubject()).isEqualTo("ch4mpy");
+		assertThat(new OpenidClaimSet(new UnmodifiableClaimSet(jwt)).getDelegate()).isSameAs(jwt.getClaims());
+	}
+
+	@Test
+	public void whenClaimsAreAReadOnlyViewThenTheyAreCopied() {
+		final var claims = new LinkedHashMap<String, Object>(Map.of("sub", "ch4mpy"));
+		final var view = Collections.unmodifiableMap(claims);
+		final var claimSet = new UnmodifiableClaimSet(view);
+		claims.put("sub", "tonton-pirate");
+
+		assertThat(claimSet.getDelegate()).isNotSameAs(view);
+		assertThat(claimSet).containsEntry("sub", "ch4mpy");
+	}
+
+	@Test
+	public void whenClaimsAreMutableThenTheyAreCopiedIntoAnImmutableMap() {
+		final var claims = new HashMap<String, Object>();
+		claims.put("sub", "ch4mpy");
+		claims.put("nonce", null);
+		final var claimSet = new UnmodifiableClaimSet(claims);
+		claims.put("sub", "tonton-pirate");
+
+		assertThat(claimSet.getDelegate()).isInstanceOf(CompactClaimMap.class);
+		assertThat(claimSet).hasSize(2).containsEntry("sub", "ch4mpy").containsKey("nonce").doesNotContainKey("scope");
+		final var expected = new HashMap<String, Object>();
+		expected.put("sub", "ch4mpy");
+		expected.put("nonce", null);
+		assertThat(claimSet.getDelegate()).isEqualTo(expected);
+		assertThat(claimSet.getDelegate().hashCode()).isEqualTo(expected.hashCode());
+		assertThatThrownBy(() -> claimSet.put("sub", "tonton-pirate")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> claimSet.clear()).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void whenClaimsAreNumerousThenTheyAreCopiedIntoAHashMap() {
+		final var claims = new HashMap<String, Object>();
+		for (var i = 0; i <= CompactClaimMap.MAX_SIZE; ++i) {
+			claims.put("claim" + i, i);
+		}
+		final var claimSet = new UnmodifiableClaimSet(claims);
+
+		assertThat(claimSet.getDelegate()).isNotInstanceOf(CompactClaimMap.class);
+		assertThat(claimSet.getDelegate()).isEqualTo(claims);
+	}
+
+	@Test
+	public void whenTypedAccessorsAreCalledTwiceThenConvertedValuesAreReused() throws Exception {
+		final var claimSet = new OpenidClaimSet(
+				Map.of("scope", "openid  profile email", "aud", List.of("a b", "c"), "exp", 1700000000L, "iss", "https://localhost:8443/realms/master"));
+
+		final var scopes = claimSet.getAsStringSet("scope");
+		assertThat(scopes).containsExactlyInAnyOrder("openid", "profile", "email");
+		assertThat(claimSet.getAsStringSet("scope")).isSameAs(scopes);
+		assertThatThrownBy(() -> scopes.add("offline_access")).isInstanceOf(UnsupportedOperationException.class);
+		assertThat(claimSet.getAsStringSet("aud")).containsExactlyInAnyOrder("a", "b", "c");
+		assertThat(claimSet.getAsStringSet("missing")).isNull();
+
+		final var exp = claimSet.getAsInstant("exp");
+		assertThat(exp).isEqualTo(Instant.ofEpochSecond(1700000000L));
+		assertThat(claimSet.getAsInstant("exp")).isSameAs(exp);
+
+		final var iss = claimSet.getAsUri("iss");
+		assertThat(iss).isEqualTo(new URI("https://localhost:8443/realms/master"));
+		assertThat(claimSet.getAsUri("iss")).isSameAs(iss);
+		assertThat(claimSet.getAsStringSet("iss")).containsExactly("https://localhost:8443/realms/master");
+	}
+}
@@ -0,0 +1,85 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Decoding of the same RS256 token with and without verified signatures cache. Run from the IDE (main method) or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoderBenchmark}
+ *
+ * @author ch4mp
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class C4JwtDecoderBenchmark {
+	private static final String ISSUER = "https://localhost:8443/realms/master";
+
+	@Param({ "false", "true" })
+	public boolean isSignatureCacheEnabled;
+
+	private C4JwtDecoder decoder;
+	private String token;
+
+	@Setup
+	public void setUp() throws Exception {
+		final var key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		decoder = new C4JwtDecoder(JwkSetCache.getJwtProcessor(new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK()))));
+		decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+		if (isSignatureCacheEnabled) {
+			decoder.setVerifiedSignatures(new TokenCache<>(10000, Duration.ofMinutes(5)));
+		}
+
+		final var claims = new JWTClaimsSet.Builder()
+				.issuer(ISSUER)
+				.subject("ch4mpy")
+				.claim("scope", "openid profile email")
+				.issueTime(new Date())
+				.expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+				.build();
+		final var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("k1").build(), claims);
+		jwt.sign(new RSASSASigner(key));
+		token = jwt.serialize();
+	}
+
+	@Benchmark
+	public Jwt decode() {
+		return decoder.decode(token);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(C4JwtDecoderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,96 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+
+public class C4JwtDecoderTest {
+	private static final String ISSUER = "https://localhost:8443/realms/master";
+
+	@Test
+	public void whenTokenIsAlreadyParsedThenItIsDecodedAndValidated() throws Exception {
+		final var key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		final var decoder = decoder(key);
+		final var token = sign(key, ISSUER);
+
+		final var jwt = decoder.decode(JWTParser.parse(token), token);
+
+		assertThat(jwt.getTokenValue()).isEqualTo(token);
+		assertThat(jwt.getSubject()).isEqualTo("ch4mpy");
+		assertThat(jwt.getIssuer().toString()).isEqualTo(ISSUER);
+		assertThat(jwt.getHeaders()).containsEntry("kid", "k1");
+		assertThat(decoder.decode(token).getClaims()).isEqualTo(jwt.getClaims());
+	}
+
+	@Test
+	public void whenSignatureOrIssuerIsInvalidThenDecodingFails() throws Exception {
+		final var key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		final var otherKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+		final var decoder = decoder(key);
+
+		assertThatThrownBy(() -> decoder.decode(sign(otherKey, ISSUER))).isInstanceOf(BadJwtException.class);
+		assertThatThrownBy(() -> decoder.decode(sign(key, "https://evil.com"))).isInstanceOf(JwtValidationException.class);
+	}
+
+	@Test
+	public void whenSignatureWasVerifiedAlreadyThenItIsNotVerifiedAgainButClaimsAreStillValidated() throws Exception {
+		final var key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		final var jwtProcessor = spy(JwkSetCache.getJwtProcessor(new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK()))));
+		final var decoder = new C4JwtDecoder(jwtProcessor);
+		decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+		decoder.setVerifiedSignatures(new TokenCache<>(10, Duration.ofMinutes(5)));
+		final var token = sign(key, ISSUER);
+
+		assertThat(decoder.decode(token).getSubject()).isEqualTo("ch4mpy");
+		assertThat(decoder.decode(token).getSubject()).isEqualTo("ch4mpy");
+		verify(jwtProcessor, times(1)).process(any(JWT.class), isNull());
+
+		decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer("https://other-issuer"));
+		assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtValidationException.class);
+		verify(jwtProcessor, times(1)).process(any(JWT.class), isNull());
+	}
+
+	private static C4JwtDecoder decoder(RSAKey key) {
+		final var decoder = new C4JwtDecoder(JwkSetCache.getJwtProcessor(new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK()))));
+		decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+		return decoder;
+	}
+
+	private static String sign(RSAKey key, String issuer) throws Exception {
+		final var claims = new JWTClaimsSet.Builder()
+				.issuer(issuer)
+				.subject("ch4mpy")
+				.issueTime(new Date())
+				.expirationTime(Date.from(Instant.now().plusSeconds(300)))
+				.build();
+		final var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+		jwt.sign(new RSASSASigner(key));
+		return jwt.serialize();
+	}
+}
@@ -0,0 +1,55 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ClaimPathTest {
+
+	// @formatter:off
+	private static final Map<String, Object> CLAIMS = Map.of(
+			"realm_access", Map.of("roles", List.of("r1", "r2")),
+			"nested", List.of(List.of("n1", "n2"), List.of("n3")),
+			"groups", List.of(Map.of("name", "g1"), Map.of("name", "g2")),
+			"scalar", "s1",
+			"number", 42);
+	// @formatter:on
+
+	private static List<String> collect(String path) {
+		final var values = new ArrayList<String>();
+		ClaimPath.compile(path).collect(CLAIMS, values);
+		return values;
+	}
+
+	@Test
+	public void whenPathPointsToArrayThenAllElementsAreCollected() {
+		assertThat(collect("realm_access.roles")).containsExactly("r1", "r2");
+	}
+
+	@Test
+	public void whenPathPointsToNestedArraysThenElementsAreFlattened() {
+		assertThat(collect("nested")).containsExactly("n1", "n2", "n3");
+	}
+
+	@Test
+	public void whenIntermediateClaimIsArrayThenPathIsResolvedOnEachElement() {
+		assertThat(collect("groups.name")).containsExactly("g1", "g2");
+	}
+
+	@Test
+	public void whenPathPointsToScalarThenItIsCollectedAsSingleValue() {
+		assertThat(collect("scalar")).containsExactly("s1");
+		assertThat(collect("number")).containsExactly("42");
+	}
+
+	@Test
+	public void whenPathIsMissingThenNothingIsCollected() {
+		assertThat(collect("resource_access.client1.roles")).isEmpty();
+		assertThat(collect("scalar.roles")).isEmpty();
+		assertThat(collect("realm_access")).isEmpty();
+	}
+}
@@ -0,0 +1,71 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.CorsProperties;
+
+public class CompiledCorsConfigurationsTest {
+
+	@Test
+	public void whenSeveralPathsMatchThenFirstDeclaredEntryIsUsed() {
+		final var configurations = new CompiledCorsConfigurations(
+				new CorsProperties[] { cors("/greet/**", "https://localhost:4200"), cors("/**", "*") });
+
+		assertThat(configurations.getCorsConfiguration("/greet/public").getAllowedOrigins()).containsExactly("https://localhost:4200");
+		assertThat(configurations.getCorsConfiguration("/orders/42").getAllowedOrigins()).containsExactly("*");
+		assertThat(new CompiledCorsConfigurations(new CorsProperties[] { cors("/greet/**", "*") }).getCorsConfiguration("/orders")).isNull();
+	}
+
+	@Test
+	public void whenOriginIsCheckedThenExactOriginsAndPatternsAreAllowed() {
+		final var props = cors("/**", "https://localhost:4200/");
+		props.setAllowedOriginPatterns(new String[] { "https://*.c4-soft.com" });
+		final var configuration = new CompiledCorsConfigurations(new CorsProperties[] { props }).getCorsConfiguration("/greet");
+
+		assertThat(configuration.checkOrigin("https://localhost:4200")).isEqualTo("https://localhost:4200");
+		assertThat(configuration.checkOrigin("HTTPS://LOCALHOST:4200/")).isEqualTo("HTTPS://LOCALHOST:4200/");
+		assertThat(configuration.checkOrigin("https://bravo-ch4mp.c4-soft.com")).isEqualTo("https://bravo-ch4mp.c4-soft.com");
+		assertThat(configuration.checkOrigin("https://localhost:8080")).isNull();
+		assertThat(configuration.checkOrigin("https://c4-soft.com.evil.org")).isNull();
+		assertThat(configuration.checkOrigin("")).isNull();
+
+		final var any = new CompiledCorsConfigurations(new CorsProperties[] { cors("/**", "*") }).getCorsConfiguration("/greet");
+		assertThat(any.checkOrigin("https://localhost:8080")).isEqualTo("*");
+	}
+
+	@Test
+	public void whenAllowedOriginContainsWildcardThenItIsNotAPattern() {
+		final var configuration = new CompiledCorsConfigurations(
+				new CorsProperties[] { cors("/**", "https://localhost:4200", "https://*.c4-soft.com") }).getCorsConfiguration("/greet");
+
+		assertThat(configuration.getAllowedOriginPatterns()).isNull();
+		assertThat(configuration.checkOrigin("https://bravo-ch4mp.c4-soft.com")).isNull();
+		assertThat(configuration.checkOrigin("https://*.c4-soft.com")).isEqualTo("https://*.c4-soft.com");
+		assertThat(configuration.checkOrigin("https://localhost:4200")).isEqualTo("https://localhost:4200");
+	}
+
+	@Test
+	public void whenHeadersAreCheckedThenOnlyAllowedOnesAreReturned() {
+		final var props = cors("/**", "*");
+		props.setAllowedHeaders(new String[] { "Authorization", "Content-Type" });
+		final var configuration = new CompiledCorsConfigurations(new CorsProperties[] { props }).getCorsConfiguration("/greet");
+
+		assertThat(configuration.checkHeaders(List.of("authorization", " Content-Type "))).containsExactly("authorization", "Content-Type");
+		assertThat(configuration.checkHeaders(List.of("X-Custom"))).isNull();
+		assertThat(configuration.checkHeaders(List.of())).isEmpty();
+
+		final var any = new CompiledCorsConfigurations(new CorsProperties[] { cors("/**", "*") }).getCorsConfiguration("/greet");
+		assertThat(any.checkHeaders(List.of("X-Custom"))).containsExactly("X-Custom");
+	}
+
+	private static CorsProperties cors(String path, String... allowedOrigins) {
+		final var props = new CorsProperties();
+		props.setPath(path);
+		props.setAllowedOrigins(allowedOrigins);
+		return props;
+	}
+}
@@ -0,0 +1,70 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Matching of request paths against default "permit-all" patterns: one Ant matcher per pattern (what registering each pattern as a
+ * request matcher does) versus {@link CompiledPathPatterns}. Run from the IDE (main method) or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.c4_soft.springaddons.security.oauth2.config.CompiledPathPatternsBenchmark}
+ *
+ * @author ch4mp
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledPathPatternsBenchmark {
+	private static final AntPathMatcher ANT = new AntPathMatcher();
+
+	@Param({ "/actuator/health/liveness", "/favicon.ico", "/api/orders/42" })
+	public String path;
+
+	private List<Predicate<String>> sequential;
+	private CompiledPathPatterns compiled;
+
+	@Setup
+	public void setUp() {
+		final var patterns = new SpringAddonsSecurityProperties().getPermitAll();
+		sequential = List.of(patterns).stream().<Predicate<String>>map(pattern -> p -> ANT.match(pattern, p)).toList();
+		compiled = new CompiledPathPatterns(patterns, pattern -> p -> ANT.match(pattern, p));
+	}
+
+	@Benchmark
+	public boolean sequentialMatchers() {
+		for (final var matcher : sequential) {
+			if (matcher.test(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Benchmark
+	public boolean compiledPatterns() {
+		return compiled.test(path);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CompiledPathPatternsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
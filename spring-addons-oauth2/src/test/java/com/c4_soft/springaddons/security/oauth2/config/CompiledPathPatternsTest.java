@@ -0,0 +1,86 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+public class CompiledPathPatternsTest {
+	private static final AntPathMatcher ANT = new AntPathMatcher();
+
+	private static final String[] PATTERNS = {
+			"/actuator/**",
+			"/v3/api-docs/**",
+			"/swagger-ui.html",
+			"/favicon.ico",
+			"/greet/public",
+			"/static/*.css",
+			"/users/{id}/avatar",
+			"/assets/**/*.png" };
+
+	private static final List<String> PATHS = List.of(
+			"/",
+			"/actuator",
+			"/actuator/",
+			"/actuator/health/liveness",
+			"/actuatorx",
+			"/v3/api-docs",
+			"/v3/api-docs/swagger-config",
+			"/v3",
+			"/swagger-ui.html",
+			"/swagger-ui.html/",
+			"/favicon.ico",
+			"/greet",
+			"/greet/public",
+			"/greet/public/",
+			"/greet/public/more",
+			"/static/main.css",
+			"/static/main.js",
+			"/users/42/avatar",
+			"/users/42",
+			"/assets/img/logo.png",
+			"/assets/img/logo.jpg",
+			"//actuator/health",
+			"/greet//public",
+			"");
+
+	@Test
+	public void whenMatchingThenResultsAreTheSameAsSequentialAntMatchers() {
+		final var compiled = new CompiledPathPatterns(PATTERNS, pattern -> path -> ANT.match(pattern, path));
+
+		for (final var path : PATHS) {
+			assertThat(compiled.test(path)).as(path).isEqualTo(List.of(PATTERNS).stream().anyMatch(pattern -> ANT.match(pattern, path)));
+		}
+	}
+
+	@Test
+	public void whenSeveralPatternsMatchThenFirstDeclaredOneIsReturned() {
+		final var compiled = new CompiledPathPatterns(
+				new String[] { "/api/users/*", "/api/**", "/api/users/me", "/**" },
+				pattern -> path -> ANT.match(pattern, path));
+
+		assertThat(compiled.indexOfFirstMatch("/api/users/me")).isEqualTo(0);
+		assertThat(compiled.indexOfFirstMatch("/api/users")).isEqualTo(1);
+		assertThat(compiled.indexOfFirstMatch("/api")).isEqualTo(1);
+		assertThat(compiled.indexOfFirstMatch("/greet")).isEqualTo(3);
+		assertThat(new CompiledPathPatterns(new String[] { "/api/users/me" }, pattern -> path -> false).indexOfFirstMatch("/api")).isEqualTo(-1);
+	}
+
+	@Test
+	public void whenPatternIsRootWildcardThenEverythingMatches() {
+		final var compiled = new CompiledPathPatterns(new String[] { "/**" }, pattern -> path -> false);
+
+		assertThat(compiled.test("/")).isTrue();
+		assertThat(compiled.test("/any/thing")).isTrue();
+	}
+
+	@Test
+	public void whenNoPatternThenNothingMatches() {
+		final var compiled = new CompiledPathPatterns(new String[] {}, pattern -> path -> true);
+
+		assertThat(compiled.test("/")).isFalse();
+		assertThat(compiled.test("/actuator/health")).isFalse();
+	}
+}
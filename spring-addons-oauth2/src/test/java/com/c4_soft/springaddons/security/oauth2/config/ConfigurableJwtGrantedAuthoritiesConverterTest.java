@@ -1,6 +1,7 @@
 package com.c4_soft.springaddons.security.oauth2.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -73,4 +74,39 @@ public class ConfigurableJwtGrantedAuthoritiesConverterTest {
 
 	}
 
+	@Test
+	public void whenIssuerHasTrailingSlashThenMappingIsFound() throws URISyntaxException {
+		final var issuerProperties = new IssuerProperties();
+		issuerProperties.setLocation(new URI("https://authorisation-server/realms/master/"));
+		final var properties = new SpringAddonsSecurityProperties();
+		properties.setIssuers(new IssuerProperties[] { issuerProperties });
+		final var converter = new ConfigurableClaimSet2AuthoritiesConverter(properties);
+
+		final var claims = Map.<String, Object>of(JwtClaimNames.ISS, "https://authorisation-server/realms/master", "realm_access", Map.of("roles", List.of("r1")));
+
+		assertThat(converter.convert(claims).stream().map(GrantedAuthority::getAuthority).toList()).containsExactly("r1");
+	}
+
+	@Test
+	public void whenIssuersAreReplacedThenIndexIsRebuilt() throws URISyntaxException {
+		final var properties = new SpringAddonsSecurityProperties();
+		final var converter = new ConfigurableClaimSet2AuthoritiesConverter(properties);
+		final var claims = Map.<String, Object>of(JwtClaimNames.ISS, "https://authorisation-server", "realm_access", Map.of("roles", List.of("r1")));
+
+		assertThatThrownBy(() -> converter.convert(claims)).isInstanceOf(MissingAuthorizationServerConfigurationException.class);
+
+		final var issuerProperties = new IssuerProperties();
+		issuerProperties.setLocation(new URI("https://authorisation-server"));
+		properties.setIssuers(new IssuerProperties[] { issuerProperties });
+
+		assertThat(converter.convert(claims).stream().map(GrantedAuthority::getAuthority).toList()).containsExactly("r1");
+	}
+
+	@Test
+	public void whenIssIsMissingThenMissingAuthorizationServerConfigurationExceptionIsThrown() {
+		final var converter = new ConfigurableClaimSet2AuthoritiesConverter(new SpringAddonsSecurityProperties());
+
+		assertThatThrownBy(() -> converter.convert(Map.of("sub", "ch4mp"))).isInstanceOf(MissingAuthorizationServerConfigurationException.class);
+	}
+
 }
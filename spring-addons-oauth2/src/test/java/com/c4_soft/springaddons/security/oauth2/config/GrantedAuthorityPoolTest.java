@@ -0,0 +1,35 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.Case;
+
+public class GrantedAuthorityPoolTest {
+
+	@Test
+	public void whenSameRoleIsMappedTwiceThenSameInstanceIsReturned() {
+		final var pool = new GrantedAuthorityPool(10);
+
+		final var first = pool.get("ROLE_", Case.UPPER, "user");
+
+		assertThat(first.getAuthority()).isEqualTo("ROLE_USER");
+		assertThat(pool.get("ROLE_", Case.UPPER, "user")).isSameAs(first);
+		assertThat(pool.get("ROLE_", Case.UNCHANGED, "user").getAuthority()).isEqualTo("ROLE_user");
+		assertThat(pool.get("", Case.UPPER, "user").getAuthority()).isEqualTo("USER");
+		assertThat(pool.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void whenPoolIsFullThenAuthoritiesAreCreatedButNotRetained() {
+		final var pool = new GrantedAuthorityPool(1);
+		pool.get("", Case.LOWER, "A");
+
+		final var notPooled = pool.get("", Case.LOWER, "B");
+
+		assertThat(notPooled.getAuthority()).isEqualTo("b");
+		assertThat(pool.get("", Case.LOWER, "B")).isNotSameAs(notPooled);
+		assertThat(pool.size()).isEqualTo(1);
+	}
+}
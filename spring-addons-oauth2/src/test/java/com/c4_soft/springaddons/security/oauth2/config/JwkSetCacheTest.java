@@ -0,0 +1,100 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+
+public class JwkSetCacheTest {
+	private static final String ISSUER = "https://localhost/realms/master";
+
+	@Test
+	public void whenDiscoveryFailsThenItIsRetriedAtMostOncePerMinRefetchInterval() throws Exception {
+		final var retriever = new StubRetriever();
+		final var clock = new MutableClock(Instant.now());
+		try (var cache = new JwkSetCache(retriever, Duration.ZERO, Duration.ofSeconds(30), clock)) {
+			retriever.isFailing = true;
+
+			assertThatThrownBy(() -> cache.getJwkSource(issuer())).isInstanceOf(IllegalStateException.class);
+			final var firstAttemptRequests = retriever.count.get();
+			assertThat(firstAttemptRequests).isEqualTo(2);
+
+			retriever.isFailing = false;
+			assertThatThrownBy(() -> cache.getJwkSource(issuer())).isInstanceOf(IllegalStateException.class);
+			assertThat(retriever.count.get()).isEqualTo(firstAttemptRequests);
+
+			clock.now = clock.now.plusSeconds(30);
+			assertThat(cache.getJwkSource(issuer()).getJwkSetUrl()).isEqualTo(new URL(ISSUER + "/protocol/openid-connect/certs"));
+			assertThat(retriever.count.get()).isEqualTo(firstAttemptRequests + 1);
+		}
+	}
+
+	@Test
+	public void whenDiscoverySucceedsThenJwkSetUriIsNotDiscoveredAgain() throws Exception {
+		final var retriever = new StubRetriever();
+		try (var cache = new JwkSetCache(retriever, Duration.ZERO, Duration.ofSeconds(30), Clock.systemUTC())) {
+			final var first = cache.getJwkSource(issuer());
+			final var second = cache.getJwkSource(issuer());
+
+			assertThat(second).isSameAs(first);
+			assertThat(retriever.count.get()).isEqualTo(1);
+		}
+	}
+
+	private static IssuerProperties issuer() {
+		final var issuer = new IssuerProperties();
+		issuer.setLocation(URI.create(ISSUER));
+		return issuer;
+	}
+
+	private static class StubRetriever implements ResourceRetriever {
+		boolean isFailing = false;
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Resource retrieveResource(URL url) throws IOException {
+			count.incrementAndGet();
+			if (isFailing) {
+				throw new IOException("unavailable");
+			}
+			return new Resource("{\"issuer\":\"" + ISSUER + "\",\"jwks_uri\":\"" + ISSUER + "/protocol/openid-connect/certs\"}", "application/json");
+		}
+	}
+
+	private static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.util.function.SingletonSupplier;
+
+public class JwtDecodersWarmUpTest {
+
+	@Test
+	public void whenWarmUpTimesOutThenStartupIsNotBlockedAndReadyDecodersAreInitialized() throws InterruptedException {
+		final var release = new CountDownLatch(1);
+		final var slowInitialized = new AtomicBoolean();
+		final var fast = SingletonSupplier.of(() -> "fast");
+		final var slow = SingletonSupplier.of(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			slowInitialized.set(true);
+			return "slow";
+		});
+
+		final var start = System.nanoTime();
+		JwtDecodersWarmUp.warmUp(Map.of("https://fast", fast, "https://slow", slow), Duration.ofMillis(200));
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(slowInitialized).isFalse();
+		release.countDown();
+		assertThat(slow.get()).isEqualTo("slow");
+		assertThat(fast.get()).isEqualTo("fast");
+	}
+
+	@Test
+	public void whenDecoderInitializationFailsThenWarmUpReturnsBeforeTimeoutAndInitializationIsRetriedOnFirstUse() {
+		final var attempts = new AtomicInteger();
+		final SingletonSupplier<String> failing = SingletonSupplier.of(() -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("discovery failed");
+			}
+			return "recovered";
+		});
+
+		final var timeout = Duration.ofSeconds(5);
+		final var start = System.nanoTime();
+		JwtDecodersWarmUp.warmUp(Map.of("https://failing", failing), timeout);
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(timeout);
+		assertThat(attempts).hasValue(1);
+		assertThat(failing.get()).isEqualTo("recovered");
+		assertThat(attempts).hasValue(2);
+	}
+}
@@ -0,0 +1,203 @@
+package com.c4_soft.springaddons.security.oauth2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+
+public class RefreshingJwkSourceTest {
+
+	@Test
+	public void whenKidIsUnknownThenJwkSetIsRefetchedAtMostOncePerMinRefetchInterval() throws Exception {
+		final var retriever = new StubRetriever(key("k1"));
+		final var clock = new MutableClock(Instant.now());
+		final var source = source(retriever, clock);
+
+		assertThat(source.get(selector("k1"), null)).hasSize(1);
+		assertThat(retriever.count.get()).isEqualTo(1);
+
+		retriever.jwkSet = new JWKSet(key("k2"));
+		assertThat(source.get(selector("k2"), null)).isEmpty();
+		assertThat(retriever.count.get()).isEqualTo(1);
+
+		clock.now = clock.now.plusSeconds(30);
+		assertThat(source.get(selector("k2"), null)).hasSize(1);
+		assertThat(retriever.count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void whenRefetchFailsThenPreviousJwkSetIsServed() throws Exception {
+		final var retriever = new StubRetriever(key("k1"));
+		final var clock = new MutableClock(Instant.now());
+		final var source = source(retriever, clock);
+		source.load();
+
+		retriever.isFailing = true;
+		clock.now = clock.now.plusSeconds(30);
+
+		assertThat(source.get(selector("k2"), null)).isEmpty();
+		assertThat(source.get(selector("k1"), null)).hasSize(1);
+		assertThat(retriever.count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void whenInitialLoadFailsThenItIsRetriedAtMostOncePerMinRefetchInterval() throws Exception {
+		final var retriever = new StubRetriever(key("k1"));
+		final var clock = new MutableClock(Instant.now());
+		final var source = source(retriever, clock);
+		retriever.isFailing = true;
+
+		assertThatThrownBy(source::load).isInstanceOf(RemoteKeySourceException.class);
+		assertThatThrownBy(() -> source.get(selector("k1"), null)).isInstanceOf(RemoteKeySourceException.class);
+		assertThat(retriever.count.get()).isEqualTo(1);
+
+		retriever.isFailing = false;
+		clock.now = clock.now.plusSeconds(30);
+		assertThat(source.get(selector("k1"), null)).hasSize(1);
+		assertThat(retriever.count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void whenConcurrentRefetchFailsThenWaitingThreadsDoNotRefetch() throws Exception {
+		final var retriever = new StubRetriever(key("k1"));
+		final var clock = new MutableClock(Instant.now());
+		final var source = source(retriever, clock);
+		source.load();
+		retriever.isFailing = true;
+		retriever.latency = Duration.ofMillis(100);
+		clock.now = clock.now.plusSeconds(30);
+
+		final var threads = 8;
+		final var start = new CountDownLatch(1);
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var tasks = new ArrayList<Callable<Integer>>();
+			for (var i = 0; i < threads; ++i) {
+				tasks.add(() -> {
+					start.await();
+					return source.get(selector("k2"), null).size();
+				});
+			}
+			final var futures = tasks.stream().map(executor::submit).toList();
+			start.countDown();
+			for (final var future : futures) {
+				assertThat(future.get(5, TimeUnit.SECONDS)).isZero();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(retriever.count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void whenKeyIsInMemoryThenNoFetchIsRequired() throws Exception {
+		final var retriever = new StubRetriever(key("k1"));
+		final var clock = new MutableClock(Instant.now());
+		final var source = source(retriever, clock);
+
+		assertThat(source.isFetchRequired(header("k1"))).isTrue();
+		source.load();
+		assertThat(source.isFetchRequired(header("k1"))).isFalse();
+		assertThat(source.isFetchRequired(header("k2"))).isFalse();
+
+		clock.now = clock.now.plusSeconds(30);
+		assertThat(source.isFetchRequired(header("k1"))).isFalse();
+		assertThat(source.isFetchRequired(header("k2"))).isTrue();
+	}
+
+	private static RefreshingJwkSource source(ResourceRetriever retriever, Clock clock) throws IOException {
+		return new RefreshingJwkSource(
+				new URL("https://localhost/jwks"),
+				retriever,
+				Duration.ZERO,
+				Duration.ofSeconds(30),
+				Executors.newSingleThreadScheduledExecutor(),
+				clock);
+	}
+
+	private static RSAKey key(String kid) throws JOSEException {
+		return new RSAKeyGenerator(2048).keyID(kid).generate().toPublicJWK();
+	}
+
+	private static JWSHeader header(String kid) {
+		return new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(kid).build();
+	}
+
+	private static JWKSelector selector(String kid) {
+		return new JWKSelector(new JWKMatcher.Builder().keyID(kid).build());
+	}
+
+	private static class StubRetriever implements ResourceRetriever {
+		JWKSet jwkSet;
+		boolean isFailing = false;
+		Duration latency = Duration.ZERO;
+		final AtomicInteger count = new AtomicInteger();
+
+		StubRetriever(RSAKey key) {
+			this.jwkSet = new JWKSet(key);
+		}
+
+		@Override
+		public Resource retrieveResource(URL url) throws IOException {
+			count.incrementAndGet();
+			try {
+				Thread.sleep(latency.toMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (isFailing) {
+				throw new IOException("unavailable");
+			}
+			return new Resource(jwkSet.toString(), "application/json");
+		}
+	}
+
+	private static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
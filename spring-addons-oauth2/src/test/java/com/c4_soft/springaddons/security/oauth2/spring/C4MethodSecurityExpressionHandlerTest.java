@@ -0,0 +1,145 @@
+package com.c4_soft.springaddons.security.oauth2.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.ReflectionUtils;
+
+import com.c4_soft.springaddons.security.oauth2.AuthorityRegistry;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+import com.c4_soft.springaddons.security.oauth2.OpenidClaimSet;
+
+public class C4MethodSecurityExpressionHandlerTest {
+
+	interface Greeter {
+		String greet(String name);
+	}
+
+	static class GreeterImpl implements Greeter {
+		@Override
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+	@After
+	public void clearSecurityContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void whenSameMethodIsInvokedTwiceThenSpecificMethodIsResolvedOnce() throws Exception {
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var mi = invocation();
+
+		final var specificMethod = handler.getSpecificMethod(mi);
+
+		assertThat(specificMethod).isEqualTo(GreeterImpl.class.getMethod("greet", String.class));
+		assertThat(handler.getSpecificMethod(invocation())).isSameAs(specificMethod);
+	}
+
+	@Test
+	public void whenExpressionIsEvaluatedRepeatedlyThenItIsCompiled() throws Exception {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE");
+		SecurityContextHolder.getContext().setAuthentication(auth);
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var expression = (SpelExpression) handler.getExpressionParser().parseExpression("hasAuthority('NICE') and #name == 'ch4mpy'");
+
+		for (var i = 0; i < 200; ++i) {
+			assertThat(expression.getValue(handler.createEvaluationContext(() -> auth, invocation()), Boolean.class)).isTrue();
+		}
+
+		final var compiledAst = ReflectionUtils.findField(SpelExpression.class, "compiledAst");
+		ReflectionUtils.makeAccessible(compiledAst);
+		assertThat(ReflectionUtils.getField(compiledAst, expression)).isNotNull();
+	}
+
+	@Test
+	public void whenExpressionDoesNotAccessAuthenticationThenItIsNotResolved() throws Exception {
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var parser = handler.getExpressionParser();
+		final var resolutions = new AtomicInteger();
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE");
+
+		final var argsOnlyCtx = handler.createEvaluationContext(() -> {
+			resolutions.incrementAndGet();
+			return auth;
+		}, invocation());
+		assertThat(parser.parseExpression("permitAll() and #name == 'ch4mpy'").getValue(argsOnlyCtx, Boolean.class)).isTrue();
+		assertThat(resolutions).hasValue(0);
+
+		final var authCtx = handler.createEvaluationContext(() -> {
+			resolutions.incrementAndGet();
+			return auth;
+		}, invocation());
+		assertThat(parser.parseExpression("isAuthenticated() and hasAuthority('NICE') and authentication.name == #name").getValue(authCtx, Boolean.class))
+				.isTrue();
+		assertThat(resolutions).hasValue(1);
+	}
+
+	@Test
+	public void whenRoleHierarchyIsSetThenReachableAuthoritiesAreChecked() throws Exception {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "ROLE_ADMIN", "NICE");
+		final var roleHierarchy = new RoleHierarchyImpl();
+		roleHierarchy.setHierarchy("ROLE_ADMIN > ROLE_USER");
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var parser = handler.getExpressionParser();
+
+		final var flatCtx = handler.createEvaluationContext(() -> auth, invocation());
+		assertThat(parser.parseExpression("hasRole('ADMIN') and hasAnyAuthority('SUPER_COOL', 'NICE')").getValue(flatCtx, Boolean.class)).isTrue();
+		assertThat(parser.parseExpression("hasAnyRole('USER', 'GUEST') or hasAuthority('SUPER_COOL')").getValue(flatCtx, Boolean.class)).isFalse();
+
+		handler.setRoleHierarchy(roleHierarchy);
+		final var hierarchicalCtx = handler.createEvaluationContext(() -> auth, invocation());
+		assertThat(parser.parseExpression("hasRole('USER') and hasRole('ROLE_ADMIN') and permitAll").getValue(hierarchicalCtx, Boolean.class)).isTrue();
+	}
+
+	@Test
+	public void whenAuthenticationIsNotOAuthenticationThenItsAuthoritiesAreNotRegistered() throws Exception {
+		final var authority = "NOT_REGISTERED_" + System.nanoTime();
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", authority);
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var ctx = handler.createEvaluationContext(() -> auth, invocation());
+
+		assertThat(handler.getExpressionParser().parseExpression("hasAuthority('%s') and !hasRole('NICE')".formatted(authority)).getValue(ctx, Boolean.class))
+				.isTrue();
+		assertThat(AuthorityRegistry.indexOf(authority)).isNegative();
+	}
+
+	@Test
+	public void whenAuthenticationIsOAuthenticationThenRoleHierarchyIsApplied() throws Exception {
+		final var auth = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), "token");
+		final var roleHierarchy = new RoleHierarchyImpl();
+		roleHierarchy.setHierarchy("ROLE_ADMIN > ROLE_USER");
+		final var handler = new C4MethodSecurityExpressionHandler(C4MethodSecurityExpressionRoot::new);
+		final var parser = handler.getExpressionParser();
+
+		assertThat(parser.parseExpression("hasRole('ADMIN') and !hasRole('USER')").getValue(handler.createEvaluationContext(() -> auth, invocation()), Boolean.class))
+				.isTrue();
+
+		handler.setRoleHierarchy(roleHierarchy);
+		assertThat(parser.parseExpression("hasAnyRole('GUEST', 'USER')").getValue(handler.createEvaluationContext(() -> auth, invocation()), Boolean.class))
+				.isTrue();
+	}
+
+	private static MethodInvocation invocation() throws Exception {
+		final var mi = mock(MethodInvocation.class);
+		when(mi.getMethod()).thenReturn(Greeter.class.getMethod("greet", String.class));
+		when(mi.getThis()).thenReturn(new GreeterImpl());
+		when(mi.getArguments()).thenReturn(List.of("ch4mpy").toArray());
+		return mi;
+	}
+}
@@ -1,6 +1,7 @@
 package com.c4_soft.springaddons.starter.recaptcha;
 
 import java.net.URL;
+import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -16,4 +17,19 @@ public class C4ReCaptchaSettings {
 	@Value("${siteverify-url:https://www.google.com/recaptcha/api/siteverify}")
 	private URL siteverifyUrl;
 	private double v3Threshold = .5;
+	private CacheSettings cache = new CacheSettings();
+
+	/**
+	 * Siteverify results cache. When enabled, a response submitted again (client retry after a timeout for instance) gets the verdict of
+	 * its first validation until TTL expires, and concurrent validations of the same response share a single call to siteverify. This
+	 * lets a solved captcha be accepted more than once during TTL, which is why it is disabled by default.
+	 *
+	 * @author Jérôme Wacongne ch4mp&#64;c4-soft.com
+	 */
+	@Data
+	public static class CacheSettings {
+		private boolean enabled = false;
+		private int maxSize = 10000;
+		private Duration ttl = Duration.ofMinutes(2);
+	}
 }
@@ -1,14 +1,17 @@
 package com.c4_soft.springaddons.starter.recaptcha;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import com.c4_soft.springaddons.starter.webclient.C4WebClientBuilderFactoryService;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
@@ -20,16 +23,27 @@ import reactor.core.publisher.Mono;
  * 	throw new RuntimeException("Are you a robot?");
  * }
  * </pre>
+ * <p>
+ * If com.c4-soft.springaddons.recaptcha.cache.enabled is true, siteverify results are cached for a short TTL (keyed by a hash of the
+ * response) and concurrent validations of the same response share a single call to siteverify.
+ * </p>
  *
  * @author Jérôme Wacongne ch4mp&#64;c4-soft.com
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class C4ReCaptchaValidationService {
 
 	private final C4ReCaptchaSettings settings;
-	private final C4WebClientBuilderFactoryService webClientBuilder;
+	private final WebClient webClient;
+	private final ReCaptchaResultCache cache;
+	private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+	public C4ReCaptchaValidationService(C4ReCaptchaSettings settings, C4WebClientBuilderFactoryService webClientBuilder) {
+		this.settings = settings;
+		this.webClient = webClientBuilder.get(settings.getSiteverifyUrl()).build();
+		this.cache = settings.getCache().isEnabled() ? new ReCaptchaResultCache(settings.getCache().getMaxSize(), settings.getCache().getTtl()) : null;
+	}
 
 	/**
 	 * Checks a reCaptcha V2 challenge response
@@ -70,9 +84,30 @@ public class C4ReCaptchaValidationService {
 	}
 
 	private <T> Mono<T> response(String response, Class<T> dtoType) {
-		return webClientBuilder
-				.get(settings.getSiteverifyUrl())
-				.build()
+		if (cache == null) {
+			return siteverify(response, dtoType);
+		}
+		final var key = ReCaptchaResultCache.key(response, dtoType);
+		return Mono.defer(() -> {
+			final var cached = cache.get(key);
+			if (cached != null) {
+				return Mono.just(dtoType.cast(cached));
+			}
+			// registered only when subscribed, and removed only by the validation which registered it, before its result is signaled (so that
+			// a failure is not replayed to a retry)
+			final var validation = new AtomicReference<Mono<?>>();
+			validation.set(
+					siteverify(response, dtoType)
+							.doOnNext(dto -> cache.put(key, dto))
+							.doOnTerminate(() -> inFlight.remove(key, validation.get()))
+							.cache());
+			final var pending = inFlight.putIfAbsent(key, validation.get());
+			return (pending == null ? validation.get() : pending).map(dtoType::cast);
+		});
+	}
+
+	private <T> Mono<T> siteverify(String response, Class<T> dtoType) {
+		return webClient
 				.post()
 				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
 				.body(BodyInserters.fromFormData("secret", settings.getSecretKey()).with("response", response))
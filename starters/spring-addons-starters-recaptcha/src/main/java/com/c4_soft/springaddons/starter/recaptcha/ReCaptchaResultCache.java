@@ -0,0 +1,141 @@
+package com.c4_soft.springaddons.starter.recaptcha;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded cache for siteverify results. Entries are keyed by a SHA-256 hash of the client response (which is not retained) and expire
+ * after a fixed TTL. When the cache is full, oldest insertions are evicted first.
+ * <p>
+ * Reads of live entries are lock-free. Insertion order is kept in a doubly linked list of the live entries only (expired and replaced
+ * entries are unlinked when they are removed), guarded by a lock taken on writes and removals.
+ * </p>
+ *
+ * @author Jérôme Wacongne ch4mp&#64;c4-soft.com
+ */
+class ReCaptchaResultCache {
+	private final int maxSize;
+	private final Duration ttl;
+	private final Clock clock;
+
+	private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Sentinel of the insertion order list: {@code insertionOrder.next} is the oldest live entry, {@code insertionOrder.previous} the newest
+	 */
+	private final CacheEntry insertionOrder = new CacheEntry(null, null, null);
+	private int linkedCount = 0;
+
+	ReCaptchaResultCache(int maxSize, Duration ttl) {
+		this(maxSize, ttl, Clock.systemUTC());
+	}
+
+	ReCaptchaResultCache(int maxSize, Duration ttl, Clock clock) {
+		if (maxSize <= 0 || ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("reCaptcha cache max-size and TTL must be positive");
+		}
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+		this.clock = clock;
+		insertionOrder.previous = insertionOrder;
+		insertionOrder.next = insertionOrder;
+	}
+
+	Object get(String key) {
+		final var entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (!entry.expiresAt.isAfter(clock.instant())) {
+			remove(entry);
+			return null;
+		}
+		return entry.value;
+	}
+
+	void put(String key, Object value) {
+		final var entry = new CacheEntry(key, value, clock.instant().plus(ttl));
+		synchronized (insertionOrder) {
+			final var replaced = entries.put(key, entry);
+			if (replaced != null) {
+				unlink(replaced);
+			}
+			linkLast(entry);
+			while (linkedCount > maxSize) {
+				final var oldest = insertionOrder.next;
+				entries.remove(oldest.key, oldest);
+				unlink(oldest);
+			}
+		}
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private void remove(CacheEntry entry) {
+		synchronized (insertionOrder) {
+			if (entries.remove(entry.key, entry)) {
+				unlink(entry);
+			}
+		}
+	}
+
+	private void linkLast(CacheEntry entry) {
+		entry.previous = insertionOrder.previous;
+		entry.next = insertionOrder;
+		insertionOrder.previous.next = entry;
+		insertionOrder.previous = entry;
+		++linkedCount;
+	}
+
+	private void unlink(CacheEntry entry) {
+		if (entry.previous == null) {
+			return;
+		}
+		entry.previous.next = entry.next;
+		entry.next.previous = entry.previous;
+		entry.previous = null;
+		entry.next = null;
+		--linkedCount;
+	}
+
+	/**
+	 * @param  response the reCaptcha response submitted by a client
+	 * @param  dtoType  the type of the siteverify result (V2 and V3 results are cached separately)
+	 * @return          a cache key which does not retain the response
+	 */
+	static String key(String response, Class<?> dtoType) {
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256").digest(response.getBytes(StandardCharsets.UTF_8));
+			return dtoType.getSimpleName() + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static final class CacheEntry {
+		private final String key;
+		private final Object value;
+		private final Instant expiresAt;
+
+		/**
+		 * Guarded by the insertion order sentinel, null once unlinked
+		 */
+		private CacheEntry previous;
+		private CacheEntry next;
+
+		private CacheEntry(String key, Object value, Instant expiresAt) {
+			this.key = key;
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
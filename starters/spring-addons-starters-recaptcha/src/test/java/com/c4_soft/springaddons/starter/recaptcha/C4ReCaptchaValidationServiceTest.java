@@ -0,0 +1,135 @@
+package com.c4_soft.springaddons.starter.recaptcha;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.c4_soft.springaddons.starter.webclient.C4ProxySettings;
+import com.c4_soft.springaddons.starter.webclient.C4WebClientBuilderFactoryService;
+import com.c4_soft.springaddons.starter.webclient.C4WebClientPoolSettings;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class C4ReCaptchaValidationServiceTest {
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+	private static final String SUCCESS = "{\"success\":true,\"score\":0.9,\"hostname\":\"localhost\"}";
+
+	private final AtomicInteger siteverifyCalls = new AtomicInteger();
+	private volatile Mono<Void> siteverifyDelay = Mono.empty();
+	private volatile boolean isSiteverifyDown = false;
+	private DisposableServer siteverify;
+	private C4WebClientBuilderFactoryService webClientBuilderFactory;
+
+	@BeforeEach
+	void setUp() {
+		siteverify = HttpServer.create().port(0).handle((request, response) -> {
+			siteverifyCalls.incrementAndGet();
+			if (isSiteverifyDown) {
+				return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send();
+			}
+			return siteverifyDelay
+					.then(response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).sendString(Mono.just(SUCCESS)).then());
+		}).bindNow();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (webClientBuilderFactory != null) {
+			webClientBuilderFactory.destroy();
+		}
+		siteverify.disposeNow();
+	}
+
+	@Test
+	void whenCacheIsDisabledThenEachCheckCallsSiteverify() throws MalformedURLException {
+		final var service = service(false);
+
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+
+		assertEquals(2, siteverifyCalls.get());
+	}
+
+	@Test
+	void whenCacheIsEnabledThenSameResponseIsVerifiedOnce() throws MalformedURLException {
+		final var service = service(true);
+
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+		assertTrue(service.checkV2("other").block(TIMEOUT));
+
+		assertEquals(2, siteverifyCalls.get());
+	}
+
+	@Test
+	void whenSameResponseIsCheckedAsV2AndV3ThenVerdictsAreCachedSeparately() throws MalformedURLException {
+		final var service = service(true);
+
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+		assertEquals(0.9, service.checkV3("response").block(TIMEOUT));
+		assertEquals(0.9, service.checkV3("response").block(TIMEOUT));
+
+		assertEquals(2, siteverifyCalls.get());
+	}
+
+	@Test
+	void whenSiteverifyFailsThenFailureIsNotCached() throws MalformedURLException {
+		final var service = service(true);
+
+		isSiteverifyDown = true;
+		assertThrows(RuntimeException.class, () -> service.checkV2("response").block(TIMEOUT));
+
+		isSiteverifyDown = false;
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+		assertTrue(service.checkV2("response").block(TIMEOUT));
+
+		assertEquals(2, siteverifyCalls.get());
+	}
+
+	@Test
+	void whenSameResponseIsCheckedConcurrentlyThenSiteverifyIsCalledOnce() throws Exception {
+		final var service = service(true);
+		final var received = new CountDownLatch(1);
+		final var release = Sinks.empty();
+		siteverifyDelay = Mono.fromRunnable(received::countDown).then(release.asMono()).then();
+
+		final var first = service.checkV2("response").toFuture();
+		assertTrue(received.await(5, TimeUnit.SECONDS));
+		final var second = service.checkV2("response").toFuture();
+		release.tryEmitEmpty();
+
+		assertTrue(first.get(5, TimeUnit.SECONDS));
+		assertTrue(second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, siteverifyCalls.get());
+	}
+
+	private C4ReCaptchaValidationService service(boolean isCacheEnabled) throws MalformedURLException {
+		final var settings = new C4ReCaptchaSettings();
+		settings.setSecretKey("machin");
+		settings.setSiteverifyUrl(new URL("http://localhost:%d/recaptcha/api/siteverify".formatted(siteverify.port())));
+		settings.getCache().setEnabled(isCacheEnabled);
+
+		final var proxySettings = new C4ProxySettings();
+		proxySettings.setHttpProxy(null);
+		proxySettings.setHost(null);
+		webClientBuilderFactory = new C4WebClientBuilderFactoryService(proxySettings, new C4WebClientPoolSettings());
+		return new C4ReCaptchaValidationService(settings, webClientBuilderFactory);
+	}
+}
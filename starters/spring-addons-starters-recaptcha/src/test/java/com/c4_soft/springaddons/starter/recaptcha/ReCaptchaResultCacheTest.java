@@ -0,0 +1,134 @@
+package com.c4_soft.springaddons.starter.recaptcha;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+class ReCaptchaResultCacheTest {
+
+	@Test
+	void whenTtlIsElapsedThenEntryExpires() {
+		final var clock = new MutableClock(Instant.now());
+		final var cache = new ReCaptchaResultCache(10, Duration.ofSeconds(30), clock);
+
+		cache.put("key", "verdict");
+		clock.now = clock.now.plusSeconds(29);
+		assertEquals("verdict", cache.get("key"));
+
+		clock.now = clock.now.plusSeconds(1);
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	void whenMaxSizeIsExceededThenOldestInsertionsAreEvicted() {
+		final var cache = new ReCaptchaResultCache(2, Duration.ofMinutes(1));
+
+		cache.put("first", 1);
+		cache.put("second", 2);
+		cache.put("third", 3);
+
+		assertNull(cache.get("first"));
+		assertEquals(2, cache.get("second"));
+		assertEquals(3, cache.get("third"));
+	}
+
+	@Test
+	void whenEntryExpiresThenItNoLongerCountsAgainstMaxSize() {
+		final var clock = new MutableClock(Instant.now());
+		final var cache = new ReCaptchaResultCache(2, Duration.ofSeconds(30), clock);
+		cache.put("first", 1);
+		clock.now = clock.now.plusSeconds(10);
+		cache.put("second", 2);
+
+		clock.now = clock.now.plusSeconds(20);
+		assertNull(cache.get("first"));
+		cache.put("third", 3);
+
+		assertEquals(2, cache.size());
+		assertEquals(2, cache.get("second"));
+		assertEquals(3, cache.get("third"));
+	}
+
+	@Test
+	void whenSameKeyIsPutConcurrentlyThenReplacedEntriesDoNotCountAgainstMaxSize() throws Exception {
+		final var cache = new ReCaptchaResultCache(3, Duration.ofMinutes(1));
+		final var executor = Executors.newFixedThreadPool(4);
+		try {
+			final var puts = new ArrayList<Callable<Void>>();
+			for (var i = 0; i < 1000; ++i) {
+				final var value = i;
+				puts.add(() -> {
+					cache.put("first", value);
+					return null;
+				});
+			}
+			for (final var put : executor.invokeAll(puts)) {
+				put.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		cache.put("second", 2);
+		cache.put("third", 3);
+
+		assertEquals(3, cache.size());
+		assertNotNull(cache.get("first"));
+		cache.put("fourth", 4);
+		assertNull(cache.get("first"));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	void whenKeyIsComputedThenV2AndV3AreSeparatedAndResponseIsNotRetained() {
+		final var v2 = ReCaptchaResultCache.key("03AGdBq2", V2ValidationResponseDto.class);
+		final var v3 = ReCaptchaResultCache.key("03AGdBq2", V3ValidationResponseDto.class);
+
+		assertNotEquals(v2, v3);
+		assertEquals(v2, ReCaptchaResultCache.key("03AGdBq2", V2ValidationResponseDto.class));
+		assertNotEquals(v2, ReCaptchaResultCache.key("03AGdBq3", V2ValidationResponseDto.class));
+		assertFalse(v2.contains("03AGdBq2"));
+	}
+
+	@Test
+	void whenSettingsAreNotPositiveThenCacheIsNotCreated() {
+		assertThrows(IllegalArgumentException.class, () -> new ReCaptchaResultCache(0, Duration.ofMinutes(1)));
+		assertThrows(IllegalArgumentException.class, () -> new ReCaptchaResultCache(10, Duration.ZERO));
+	}
+
+	static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Relays the access-token of the current request to downstream services (sets the Authorization header of requests which have none).
+ * </p>
+ * <p>
+ * The authentication is taken from the reactive security context or, if there is none, from the thread-bound one (servlet apps). For
+ * {@link OAuthentication}, the "Bearer ..." header value is built once per authentication and reused for every downstream call.
+ * </p>
+ * Requires spring-addons-oauth2 on the classpath:
+ *
+ * <pre>
+ * webClientBuilderFactoryService.get(baseUrl).filter(new BearerTokenRelayFilterFunction()).build();
+ * </pre>
+ *
+ * @author Jérôme Wacongne ch4mp&#64;c4-soft.com
+ */
+public class BearerTokenRelayFilterFunction implements ExchangeFilterFunction {
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		if (request.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+			return next.exchange(request);
+		}
+		return ReactiveSecurityContextHolder
+				.getContext()
+				.mapNotNull(SecurityContext::getAuthentication)
+				.switchIfEmpty(Mono.fromSupplier(() -> SecurityContextHolder.getContext().getAuthentication()))
+				.mapNotNull(BearerTokenRelayFilterFunction::getBearerHeader)
+				.map(header -> ClientRequest.from(request).headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, header)).build())
+				.defaultIfEmpty(request)
+				.flatMap(next::exchange);
+	}
+
+	static @Nullable String getBearerHeader(Authentication authentication) {
+		if (authentication instanceof OAuthentication<?> oauthentication) {
+			return oauthentication.getBearerHeader();
+		}
+		if (authentication.getCredentials() instanceof AbstractOAuth2Token token) {
+			return "Bearer " + token.getTokenValue();
+		}
+		return null;
+	}
+}
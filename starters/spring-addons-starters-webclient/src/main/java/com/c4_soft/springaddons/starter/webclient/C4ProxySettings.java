@@ -102,6 +102,16 @@ public class C4ProxySettings {
 		return host.map(h -> nonProxyHostsPattern).orElse(getNonProxyHostsPattern(noProxy));
 	}
 
+	/**
+	 * @return the rules from {@link #getNoProxy()} source (nonProxyHostsPattern if host is set, no_proxy otherwise) compiled into a matcher
+	 */
+	public NonProxyHostsMatcher getNonProxyHostsMatcher() {
+		if (Boolean.FALSE.equals(enabled)) {
+			return NonProxyHostsMatcher.NONE;
+		}
+		return host.map(h -> NonProxyHostsMatcher.ofPattern(nonProxyHostsPattern)).orElse(NonProxyHostsMatcher.ofNoProxy(noProxy));
+	}
+
 	static ProxyProvider.Proxy getProtocoleType(String protocol) {
 		if (protocol == null) {
 			return null;
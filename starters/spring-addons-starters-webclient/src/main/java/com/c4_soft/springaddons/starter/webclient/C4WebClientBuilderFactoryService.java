@@ -3,24 +3,56 @@ package com.c4_soft.springaddons.starter.webclient;
 import java.net.URL;
 import java.util.Optional;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
+ * <p>
+ * Builds WebClient with proxy configuration applied.
+ * </p>
+ * <p>
+ * All the WebClient built with {@link #get(URL)} share a single connection pool (configured with {@link C4WebClientPoolSettings}) and a
+ * single connector, so that connections (and TLS sessions) are reused across WebClient instances and base URLs.
+ * </p>
+ * <p>
+ * Proxy bypass rules are compiled once into a {@link NonProxyHostsMatcher}.
+ * </p>
+ *
  * @author Jérôme Wacongne ch4mp&#64;c4-soft.com
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
-public class C4WebClientBuilderFactoryService {
+public class C4WebClientBuilderFactoryService implements DisposableBean {
 
 	private final C4ProxySettings settings;
+	private final NonProxyHostsMatcher nonProxyHosts;
+	private final ConnectionProvider connectionProvider;
+	private final HttpClient httpClient;
+	private final ReactorClientHttpConnector connector;
+
+	public C4WebClientBuilderFactoryService(C4ProxySettings settings, C4WebClientPoolSettings poolSettings) {
+		this.settings = settings;
+		this.nonProxyHosts = settings.getNonProxyHostsMatcher();
+		this.connectionProvider = connectionProvider(poolSettings);
+		var sharedClient = HttpClient.create(connectionProvider).keepAlive(poolSettings.isKeepAlive());
+		if (poolSettings.isHttp2()) {
+			sharedClient = sharedClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+		}
+		if (isProxyEnabled()) {
+			log.debug("Building ReactorClientHttpConnector with {}", settings);
+			sharedClient = withProxy(sharedClient);
+		}
+		this.httpClient = sharedClient;
+		this.connector = new ReactorClientHttpConnector(httpClient);
+	}
 
 	public WebClient.Builder get() {
 		return get(null);
@@ -29,24 +61,64 @@ public class C4WebClientBuilderFactoryService {
 	public WebClient.Builder get(URL baseUrl) {
 		final var builder = WebClient.builder();
 		Optional.ofNullable(baseUrl).map(URL::toString).ifPresent(builder::baseUrl);
-		if (Boolean.FALSE.equals(settings.getEnabled()) || !StringUtils.hasText(settings.getHostname())) {
-			return builder;
+		return builder.clientConnector(connector);
+	}
+
+	/**
+	 * @param  baseUrl    optional base URL for the requests issued by the built WebClient
+	 * @param  httpClient a pre-configured HTTP client (dedicated connection pool, keep-alive, timeouts, ...). Proxy settings are applied to it
+	 *                    when enabled.
+	 * @return            a WebClient builder using the provided HTTP client
+	 */
+	public WebClient.Builder get(URL baseUrl, HttpClient httpClient) {
+		final var builder = WebClient.builder();
+		Optional.ofNullable(baseUrl).map(URL::toString).ifPresent(builder::baseUrl);
+		if (!isProxyEnabled()) {
+			return builder.clientConnector(new ReactorClientHttpConnector(httpClient));
 		}
 		log.debug("Building ReactorClientHttpConnector with {}", settings);
-		final var connector =
-				new ReactorClientHttpConnector(
-						HttpClient
-								.create()
-								.proxy(
-										proxy -> proxy
-												.type(settings.getType())
-												.host(settings.getHostname())
-												.port(settings.getPort())
-												.username(settings.getUsername())
-												.password(username -> settings.getPassword())
-												.nonProxyHosts(settings.getNoProxy())
-												.connectTimeoutMillis(settings.getConnectTimeoutMillis())));
+		return builder.clientConnector(new ReactorClientHttpConnector(withProxy(httpClient)));
+	}
 
-		return builder.clientConnector(connector);
+	/**
+	 * @return the HTTP client (shared connection pool and proxy settings) behind the WebClient built with {@link #get(URL)}
+	 */
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	@Override
+	public void destroy() {
+		connectionProvider.dispose();
+	}
+
+	private boolean isProxyEnabled() {
+		return !Boolean.FALSE.equals(settings.getEnabled()) && StringUtils.hasText(settings.getHostname());
+	}
+
+	private HttpClient withProxy(HttpClient httpClient) {
+		return httpClient
+				.proxy(
+						proxy -> proxy
+								.type(settings.getType())
+								.host(settings.getHostname())
+								.port(settings.getPort())
+								.username(settings.getUsername())
+								.password(username -> settings.getPassword())
+								.nonProxyHostsPredicate(nonProxyHosts)
+								.connectTimeoutMillis(settings.getConnectTimeoutMillis()));
+	}
+
+	private static ConnectionProvider connectionProvider(C4WebClientPoolSettings poolSettings) {
+		final var builder = ConnectionProvider
+				.builder("c4-webclient")
+				.maxConnections(poolSettings.getMaxConnections())
+				.pendingAcquireMaxCount(poolSettings.getPendingAcquireMaxCount())
+				.pendingAcquireTimeout(poolSettings.getPendingAcquireTimeout())
+				.maxIdleTime(poolSettings.getMaxIdleTime());
+		if (poolSettings.getEvictionInterval() != null && !poolSettings.getEvictionInterval().isZero()) {
+			builder.evictInBackground(poolSettings.getEvictionInterval());
+		}
+		return builder.build();
 	}
 }
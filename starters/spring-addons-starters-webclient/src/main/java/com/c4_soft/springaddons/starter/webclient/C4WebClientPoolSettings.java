@@ -0,0 +1,34 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * <p>
+ * Configuration for the connection pool shared by all WebClient built with {@link C4WebClientBuilderFactoryService#get(java.net.URL)}.
+ * </p>
+ * <p>
+ * Connections are pooled per remote address (and proxy), so a single pool serves all base URLs.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "com.c4-soft.springaddons.webclient.pool")
+public class C4WebClientPoolSettings {
+	private int maxConnections = ConnectionProvider.DEFAULT_POOL_MAX_CONNECTIONS;
+	private int pendingAcquireMaxCount = 500;
+	private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+	private Duration maxIdleTime = Duration.ofSeconds(30);
+	private Duration evictionInterval = Duration.ofSeconds(30);
+	private boolean keepAlive = true;
+
+	/* negotiate HTTP/2 with TLS servers supporting it (ALPN), HTTP/1.1 is used otherwise */
+	private boolean http2 = false;
+}
@@ -0,0 +1,256 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * <p>
+ * Decides which remote addresses should be reached directly, bypassing the proxy. Rules are compiled once:
+ * </p>
+ * <ul>
+ * <li>from a NO_PROXY list: host names are looked-up in a hash set, domains ({@code .corporate.com} or {@code *.corporate.com}, matching
+ * sub-domains only) in a trie of reversed labels, IP addresses and CIDR ranges ({@code 10.0.0.0/8}, {@code fd00::/8}) are compared to
+ * literal or resolved addresses, and {@code *} matches any host</li>
+ * <li>from a Java RegEx: the pattern is compiled once and matched against host names</li>
+ * </ul>
+ * <p>
+ * Host names are compared case-insensitively. No DNS resolution is ever triggered.
+ * </p>
+ *
+ * @author Jérôme Wacongne &lt;ch4mp#64;c4-soft.com&gt;
+ */
+public final class NonProxyHostsMatcher implements Predicate<SocketAddress> {
+	public static final NonProxyHostsMatcher NONE = new NonProxyHostsMatcher(false, null);
+
+	private final boolean isAny;
+	private final Pattern pattern;
+	private final Set<String> hosts = new HashSet<>();
+	private final Node domains = new Node();
+	private final List<IpRange> ranges = new ArrayList<>();
+
+	private NonProxyHostsMatcher(boolean isAny, Pattern pattern) {
+		this.isAny = isAny;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * @param  noProxy entries of a NO_PROXY standard environment variable (host names, domains starting with a dot or "*.", IP addresses or
+	 *                 CIDR ranges)
+	 * @return         a matcher for the provided entries
+	 */
+	public static NonProxyHostsMatcher ofNoProxy(List<String> noProxy) {
+		if (noProxy == null || noProxy.isEmpty()) {
+			return NONE;
+		}
+		final var matcher = new NonProxyHostsMatcher(noProxy.stream().map(String::trim).anyMatch("*"::equals), null);
+		for (final var entry : noProxy) {
+			matcher.add(entry.trim());
+		}
+		return matcher;
+	}
+
+	/**
+	 * @param  nonProxyHostsPattern Java RegEx for hosts which should be reached directly
+	 * @return                      a matcher for the provided pattern
+	 */
+	public static NonProxyHostsMatcher ofPattern(String nonProxyHostsPattern) {
+		if (!StringUtils.hasText(nonProxyHostsPattern)) {
+			return NONE;
+		}
+		return new NonProxyHostsMatcher(false, Pattern.compile(nonProxyHostsPattern, Pattern.CASE_INSENSITIVE));
+	}
+
+	@Override
+	public boolean test(SocketAddress socketAddress) {
+		if (!(socketAddress instanceof InetSocketAddress address)) {
+			return false;
+		}
+		if (address.isUnresolved() || ranges.isEmpty()) {
+			return matches(address.getHostString());
+		}
+		return matches(address.getHostString()) || isInRanges(address.getAddress().getAddress());
+	}
+
+	/**
+	 * @param  host a host name or IP address literal
+	 * @return      true if requests to this host should not go through the proxy
+	 */
+	public boolean matches(String host) {
+		if (isAny) {
+			return true;
+		}
+		if (host == null || host.isEmpty()) {
+			return false;
+		}
+		if (pattern != null) {
+			return pattern.matcher(host).matches();
+		}
+		final var normalized = normalize(host);
+		if (hosts.contains(normalized)) {
+			return true;
+		}
+		if (!ranges.isEmpty()) {
+			final var ip = parseIpLiteral(normalized);
+			if (ip != null) {
+				return isInRanges(ip);
+			}
+		}
+		return isInDomains(normalized);
+	}
+
+	private void add(String entry) {
+		if (entry.isEmpty() || "*".equals(entry)) {
+			return;
+		}
+		final var normalized = normalize(entry);
+		final var slash = normalized.indexOf('/');
+		if (slash > 0) {
+			final var ip = parseIpLiteral(normalized.substring(0, slash));
+			if (ip != null) {
+				try {
+					ranges.add(new IpRange(ip, Integer.parseInt(normalized.substring(slash + 1))));
+				} catch (NumberFormatException e) {
+					// not a CIDR range: ignored, as it could not match a host name either
+				}
+			}
+			return;
+		}
+		final var ip = parseIpLiteral(normalized);
+		if (ip != null) {
+			ranges.add(new IpRange(ip, ip.length * 8));
+			return;
+		}
+		if (normalized.startsWith("*.") || normalized.startsWith(".")) {
+			var node = domains;
+			final var domain = normalized.substring(normalized.indexOf('.') + 1);
+			var end = domain.length();
+			while (end > 0) {
+				final var start = domain.lastIndexOf('.', end - 1) + 1;
+				node = node.children.computeIfAbsent(domain.substring(start, end), label -> new Node());
+				end = start - 1;
+			}
+			node.isDomain = true;
+			return;
+		}
+		hosts.add(normalized);
+	}
+
+	private boolean isInDomains(String host) {
+		var node = domains;
+		var end = host.length();
+		while (end > 0) {
+			final var start = host.lastIndexOf('.', end - 1) + 1;
+			node = node.children.get(host.substring(start, end));
+			if (node == null) {
+				return false;
+			}
+			if (node.isDomain && start > 0) {
+				return true;
+			}
+			end = start - 1;
+		}
+		return false;
+	}
+
+	private boolean isInRanges(byte[] ip) {
+		for (final var range : ranges) {
+			if (range.contains(ip)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String normalize(String host) {
+		var normalized = host.toLowerCase(Locale.ROOT);
+		if (normalized.startsWith("[") && normalized.endsWith("]")) {
+			normalized = normalized.substring(1, normalized.length() - 1);
+		}
+		return normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized;
+	}
+
+	/**
+	 * @return the address bytes if host is an IPv4 or IPv6 literal, null otherwise (without DNS resolution)
+	 */
+	static byte[] parseIpLiteral(String host) {
+		if (host.indexOf(':') >= 0) {
+			try {
+				// brackets make InetAddress fail instead of resolving what is not a valid IPv6 literal
+				return InetAddress.getByName("[" + host + "]").getAddress();
+			} catch (UnknownHostException | SecurityException e) {
+				return null;
+			}
+		}
+		final var ip = new byte[4];
+		var octet = 0;
+		var value = -1;
+		for (var i = 0; i < host.length(); ++i) {
+			final var c = host.charAt(i);
+			if (c == '.') {
+				if (value < 0 || octet == 3) {
+					return null;
+				}
+				ip[octet++] = (byte) value;
+				value = -1;
+			} else if (c >= '0' && c <= '9') {
+				value = (value < 0 ? 0 : value * 10) + (c - '0');
+				if (value > 255) {
+					return null;
+				}
+			} else {
+				return null;
+			}
+		}
+		if (value < 0 || octet != 3) {
+			return null;
+		}
+		ip[3] = (byte) value;
+		return ip;
+	}
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private boolean isDomain = false;
+	}
+
+	private static final class IpRange {
+		private final byte[] network;
+		private final int prefixLength;
+
+		IpRange(byte[] network, int prefixLength) {
+			this.network = network;
+			this.prefixLength = Math.max(0, Math.min(prefixLength, network.length * 8));
+		}
+
+		boolean contains(byte[] ip) {
+			if (ip.length != network.length) {
+				return false;
+			}
+			final var fullBytes = prefixLength / 8;
+			for (var i = 0; i < fullBytes; ++i) {
+				if (ip[i] != network[i]) {
+					return false;
+				}
+			}
+			final var remainingBits = prefixLength % 8;
+			if (remainingBits == 0) {
+				return true;
+			}
+			final var mask = 0xFF << (8 - remainingBits);
+			return (ip[fullBytes] & mask) == (network[fullBytes] & mask);
+		}
+	}
+}
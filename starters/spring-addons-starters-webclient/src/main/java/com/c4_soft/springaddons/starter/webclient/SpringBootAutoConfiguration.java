@@ -4,6 +4,6 @@ import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Import;
 
 @AutoConfiguration
-@Import({ C4ProxySettings.class, C4WebClientBuilderFactoryService.class })
+@Import({ C4ProxySettings.class, C4WebClientPoolSettings.class, C4WebClientBuilderFactoryService.class })
 public class SpringBootAutoConfiguration {
 }
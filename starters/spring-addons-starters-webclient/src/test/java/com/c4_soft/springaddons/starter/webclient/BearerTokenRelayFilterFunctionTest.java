@@ -0,0 +1,76 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+import com.c4_soft.springaddons.security.oauth2.OpenidClaimSet;
+
+import reactor.core.publisher.Mono;
+
+class BearerTokenRelayFilterFunctionTest {
+	final BearerTokenRelayFilterFunction filter = new BearerTokenRelayFilterFunction();
+
+	@Test
+	void givenRequestIsAuthenticatedWithOAuthenticationWhenCallingDownstreamServiceThenCachedBearerHeaderIsRelayed() {
+		final var authentication = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(), "machin.truc.chose");
+		final var sent = new AtomicReference<ClientRequest>();
+
+		filter
+				.filter(request(), req -> {
+					sent.set(req);
+					return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+				})
+				.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+				.block();
+
+		assertSame(authentication.getBearerHeader(), sent.get().headers().getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	@Test
+	void givenRequestIsNotAuthenticatedWhenCallingDownstreamServiceThenNoAuthorizationHeaderIsAdded() {
+		final var sent = new AtomicReference<ClientRequest>();
+
+		filter.filter(request(), req -> {
+			sent.set(req);
+			return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+		}).block();
+
+		assertNull(sent.get().headers().getFirst(HttpHeaders.AUTHORIZATION));
+		assertEquals(request().url(), sent.get().url());
+	}
+
+	@Test
+	void givenReactiveSecurityContextHasNoAuthenticationWhenCallingDownstreamServiceThenRequestIsSentWithoutAuthorizationHeader() {
+		final var sent = new AtomicReference<ClientRequest>();
+
+		filter
+				.filter(request(), req -> {
+					sent.set(req);
+					return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+				})
+				.contextWrite(ReactiveSecurityContextHolder.withSecurityContext(Mono.just(new SecurityContextImpl())))
+				.block();
+
+		assertNull(sent.get().headers().getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	static ClientRequest request() {
+		return ClientRequest.create(HttpMethod.GET, URI.create("https://localhost:8080/greet")).build();
+	}
+}
@@ -0,0 +1,72 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NonProxyHostsMatcherTest {
+
+	@Test
+	void whenNoProxyContainsHostsThenOnlyExactHostsMatch() {
+		final var matcher = NonProxyHostsMatcher.ofNoProxy(List.of("localhost", "bravo-ch4mp"));
+
+		assertTrue(matcher.matches("localhost"));
+		assertTrue(matcher.matches("Bravo-Ch4mp"));
+		assertFalse(matcher.matches("alpha-ch4mp"));
+		assertFalse(matcher.matches("sub.localhost"));
+	}
+
+	@Test
+	void whenNoProxyContainsDomainsThenSubDomainsMatch() {
+		final var matcher = NonProxyHostsMatcher.ofNoProxy(List.of(".env-domain.pf", " *.corporate.com"));
+
+		assertTrue(matcher.matches("api.env-domain.pf"));
+		assertTrue(matcher.matches("a.b.env-domain.pf"));
+		assertTrue(matcher.matches("api.corporate.com."));
+		assertFalse(matcher.matches("env-domain.pf"));
+		assertFalse(matcher.matches("api.other-env-domain.pf"));
+		assertFalse(matcher.matches("corporate.com.evil.org"));
+	}
+
+	@Test
+	void whenNoProxyContainsIpRangesThenAddressesInRangesMatch() {
+		final var matcher = NonProxyHostsMatcher.ofNoProxy(List.of("10.0.0.0/8", "192.168.1.12", "fd00::/8"));
+
+		assertTrue(matcher.matches("10.42.0.1"));
+		assertTrue(matcher.matches("192.168.1.12"));
+		assertTrue(matcher.matches("[fd12::1]"));
+		assertFalse(matcher.test(new InetSocketAddress("127.0.0.1", 80)));
+		assertTrue(matcher.test(InetSocketAddress.createUnresolved("10.1.2.3", 443)));
+		assertFalse(matcher.matches("11.0.0.1"));
+		assertFalse(matcher.matches("192.168.1.13"));
+		assertFalse(matcher.matches("fe80::1"));
+		assertFalse(matcher.matches("10.0.0.1.nip.io"));
+	}
+
+	@Test
+	void whenNoProxyContainsWildcardThenAnyHostMatches() {
+		assertTrue(NonProxyHostsMatcher.ofNoProxy(List.of("localhost", "*")).matches("www.c4-soft.com"));
+	}
+
+	@Test
+	void whenNoRuleThenNothingMatches() {
+		assertFalse(NonProxyHostsMatcher.ofNoProxy(List.of()).matches("localhost"));
+		assertFalse(NonProxyHostsMatcher.ofNoProxy(null).matches("localhost"));
+		assertFalse(NonProxyHostsMatcher.ofPattern(null).test(InetSocketAddress.createUnresolved("localhost", 80)));
+	}
+
+	@Test
+	void whenPatternIsSetThenHostsAreMatchedWithRegex() {
+		final var matcher = NonProxyHostsMatcher.ofPattern("(localhost)|(bravo\\-ch4mp)|(.*\\.corporate\\-domain\\.com)");
+
+		assertTrue(matcher.test(InetSocketAddress.createUnresolved("localhost", 8080)));
+		assertTrue(matcher.matches("api.corporate-domain.com"));
+		assertFalse(matcher.matches("corporate-domain.com"));
+		assertFalse(matcher.matches("alpha-ch4mp"));
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.c4_soft.springaddons.starter.webclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import reactor.netty.http.HttpProtocol;
+
+@SpringBootTest
+@ActiveProfiles("pool")
+class PoolTest {
+
+	@Autowired
+	C4WebClientPoolSettings poolSettings;
+
+	@Autowired
+	C4WebClientBuilderFactoryService service;
+
+	@Test
+	void testSettings() {
+		assertEquals(8, poolSettings.getMaxConnections());
+		assertEquals(500, poolSettings.getPendingAcquireMaxCount());
+		assertEquals(Duration.ofSeconds(10), poolSettings.getMaxIdleTime());
+		assertEquals(Duration.ofSeconds(5), poolSettings.getEvictionInterval());
+		assertTrue(poolSettings.isKeepAlive());
+		assertTrue(poolSettings.isHttp2());
+	}
+
+	@Test
+	void testService() throws Exception {
+		final var httpClient = service.getHttpClient();
+		assertNotNull(httpClient);
+		assertSame(httpClient, service.getHttpClient());
+		assertEquals(8, httpClient.configuration().connectionProvider().maxConnections());
+		assertEquals(2, httpClient.configuration().protocols().length);
+		assertEquals(HttpProtocol.H2, httpClient.configuration().protocols()[0]);
+		assertNotNull(service.get(new URL("https://localhost:8443")).build());
+		assertNotNull(service.get(new URL("https://localhost:9443")).build());
+	}
+
+}
@@ -1,8 +1,10 @@
 package com.c4_soft.springaddons.starter.webclient;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,9 @@ class StdEnvVarsTest {
 		assertEquals(8080, settings.getPort());
 		assertEquals(ProxyProvider.Proxy.HTTP, settings.getType());
 		assertEquals("machin", settings.getUsername());
+		assertTrue(settings.getNonProxyHostsMatcher().matches("bravo-ch4mp"));
+		assertTrue(settings.getNonProxyHostsMatcher().matches("api.env-domain.pf"));
+		assertFalse(settings.getNonProxyHostsMatcher().matches("www.c4-soft.com"));
 	}
 
 	@Test
@@ -0,0 +1,86 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import com.c4_soft.springaddons.security.oauth2.AuthoritySet;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Authority based {@link ReactiveAuthorizationManager} answering with bit operations on {@link AuthoritySet} for {@link OAuthentication}:
+ * required authorities are indexed once, when the manager is created, and {@link OAuthentication} caches its granted authorities bitset.
+ * For other {@link Authentication} implementations, granted authority names are looked up in the required ones (without registering them
+ * in the {@link com.c4_soft.springaddons.security.oauth2.AuthorityRegistry}).
+ * </p>
+ * <p>
+ * No role hierarchy is applied: only the authorities granted to the {@link Authentication} are checked. If reachable authorities should be
+ * granted access too, add them to the authentication when it is built (in the authorities converter for instance).
+ * </p>
+ * <p>
+ * Sample usage in an {@link AuthorizeExchangeSpecPostProcessor}:
+ * </p>
+ *
+ * <pre>
+ * spec.pathMatchers("/secured-route").access(AuthoritySetReactiveAuthorizationManager.hasAnyRole("AUTHORIZED_PERSONNEL", "ADMIN"))
+ * </pre>
+ *
+ * @author    ch4mp
+ * @param <T> type of the secured object (AuthorizationContext, MethodInvocation, ...)
+ */
+public final class AuthoritySetReactiveAuthorizationManager<T> implements ReactiveAuthorizationManager<T> {
+	private static final String ROLE_PREFIX = "ROLE_";
+
+	private final AuthoritySet requiredAuthorities;
+	private final Set<String> requiredAuthorityNames;
+
+	private AuthoritySetReactiveAuthorizationManager(String... authorities) {
+		this.requiredAuthorities = AuthoritySet.of(authorities);
+		this.requiredAuthorityNames = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(authorities)));
+	}
+
+	public static <T> AuthoritySetReactiveAuthorizationManager<T> hasAuthority(String authority) {
+		return new AuthoritySetReactiveAuthorizationManager<>(authority);
+	}
+
+	public static <T> AuthoritySetReactiveAuthorizationManager<T> hasAnyAuthority(String... authorities) {
+		return new AuthoritySetReactiveAuthorizationManager<>(authorities);
+	}
+
+	public static <T> AuthoritySetReactiveAuthorizationManager<T> hasRole(String role) {
+		return hasAnyRole(role);
+	}
+
+	public static <T> AuthoritySetReactiveAuthorizationManager<T> hasAnyRole(String... roles) {
+		return new AuthoritySetReactiveAuthorizationManager<>(
+				Arrays.stream(roles).map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role).toArray(String[]::new));
+	}
+
+	@Override
+	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, T object) {
+		return authentication
+				.filter(Authentication::isAuthenticated)
+				.map(auth -> new AuthorizationDecision(isGranted(auth)))
+				.defaultIfEmpty(new AuthorizationDecision(false));
+	}
+
+	private boolean isGranted(Authentication auth) {
+		if (auth instanceof OAuthentication<?> oauth) {
+			return oauth.getAuthoritySet().containsAny(requiredAuthorities);
+		}
+		for (final var granted : auth.getAuthorities()) {
+			if (requiredAuthorityNames.contains(granted.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,107 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * {@link ServerAccessDeniedHandler} writing a 403 with the exception message as body, either as plain text or as an RFC 7807 problem
+ * detail.
+ * </p>
+ * <p>
+ * Bodies are encoded once per distinct message (there are very few: "Access Denied" most of the time) and the same read-only bytes are
+ * wrapped for each response. The principal is not resolved: ExceptionTranslationWebFilter calls access-denied handlers for authenticated
+ * principals only, anonymous requests being sent to the authentication entry-point (which answers 401).
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class C4ServerAccessDeniedHandler implements ServerAccessDeniedHandler {
+	private static final int MAX_CACHED_BODIES = 64;
+	private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+	private final boolean isProblemDetail;
+	private final MediaType contentType;
+	private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+
+	/**
+	 * @param isProblemDetail if true, body is an application/problem+json document, text/plain message otherwise
+	 */
+	public C4ServerAccessDeniedHandler(boolean isProblemDetail) {
+		this.isProblemDetail = isProblemDetail;
+		this.contentType = isProblemDetail ? MediaType.APPLICATION_PROBLEM_JSON : TEXT_PLAIN_UTF8;
+	}
+
+	@Override
+	public Mono<Void> handle(ServerWebExchange exchange, AccessDeniedException denied) {
+		final var response = exchange.getResponse();
+		final var body = getBody(denied.getMessage());
+		response.setStatusCode(HttpStatus.FORBIDDEN);
+		response.getHeaders().setContentType(contentType);
+		response.getHeaders().setContentLength(body.length);
+		return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+	}
+
+	private byte[] getBody(String message) {
+		final var key = message == null ? "" : message;
+		final var cached = bodies.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		final var encoded = (isProblemDetail ? problemDetail(key) : key).getBytes(StandardCharsets.UTF_8);
+		if (bodies.size() < MAX_CACHED_BODIES) {
+			bodies.putIfAbsent(key, encoded);
+		}
+		return encoded;
+	}
+
+	private static String problemDetail(String detail) {
+		final var json = new StringBuilder("{\"type\":\"about:blank\",\"title\":\"").append(HttpStatus.FORBIDDEN.getReasonPhrase())
+				.append("\",\"status\":")
+				.append(HttpStatus.FORBIDDEN.value());
+		if (!detail.isEmpty()) {
+			json.append(",\"detail\":\"");
+			appendJsonEscaped(json, detail);
+			json.append('"');
+		}
+		return json.append('}').toString();
+	}
+
+	private static void appendJsonEscaped(StringBuilder json, String value) {
+		for (var i = 0; i < value.length(); ++i) {
+			final var c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+	}
+}
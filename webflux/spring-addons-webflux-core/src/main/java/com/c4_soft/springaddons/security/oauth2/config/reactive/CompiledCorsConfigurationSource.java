@@ -0,0 +1,26 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.c4_soft.springaddons.security.oauth2.config.CompiledCorsConfigurations;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.CorsProperties;
+
+/**
+ * Reactive {@link CorsConfigurationSource} backed by {@link CompiledCorsConfigurations}
+ *
+ * @author ch4mp
+ */
+public class CompiledCorsConfigurationSource implements CorsConfigurationSource {
+	private final CompiledCorsConfigurations configurations;
+
+	public CompiledCorsConfigurationSource(CorsProperties[] corsProperties) {
+		this.configurations = new CompiledCorsConfigurations(corsProperties);
+	}
+
+	@Override
+	public CorsConfiguration getCorsConfiguration(ServerWebExchange exchange) {
+		return configurations.getCorsConfiguration(exchange.getRequest().getPath().pathWithinApplication().value());
+	}
+}
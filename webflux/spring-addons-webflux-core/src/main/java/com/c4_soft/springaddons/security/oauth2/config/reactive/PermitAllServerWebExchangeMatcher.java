@@ -0,0 +1,50 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.c4_soft.springaddons.security.oauth2.config.CompiledPathPatterns;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Single {@link ServerWebExchangeMatcher} for all {@link SpringAddonsSecurityProperties#getPermitAll()} patterns (same semantics as one
+ * PathPatternParserServerWebExchangeMatcher per pattern), compiled into {@link CompiledPathPatterns}: literal and "/**" patterns are
+ * matched with a single walk of the request path segments instead of sequentially.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class PermitAllServerWebExchangeMatcher implements ServerWebExchangeMatcher {
+	private final CompiledPathPatterns patterns;
+
+	public PermitAllServerWebExchangeMatcher(String... patterns) {
+		this.patterns = new CompiledPathPatterns(patterns, pattern -> {
+			final var pathPattern = PathPatternParser.defaultInstance.parse(pattern);
+			return path -> pathPattern.matches(PathContainer.parsePath(path));
+		});
+	}
+
+	@Override
+	public Mono<MatchResult> matches(ServerWebExchange exchange) {
+		return matches(exchange.getRequest().getPath().pathWithinApplication().value()) ? MatchResult.match() : MatchResult.notMatch();
+	}
+
+	boolean matches(String path) {
+		return patterns.test(path);
+	}
+
+	/**
+	 * @param  delegate converter to use for requests which are not matched
+	 * @return          a converter which does not even look for a Bearer token in matched requests
+	 */
+	public ServerAuthenticationConverter skipBearerToken(ServerAuthenticationConverter delegate) {
+		return exchange -> matches(exchange.getRequest().getPath().pathWithinApplication().value()) ? Mono.<Authentication>empty() : delegate.convert(exchange);
+	}
+}
@@ -0,0 +1,78 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.c4_soft.springaddons.security.oauth2.AuthorityRegistry;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+import com.c4_soft.springaddons.security.oauth2.OpenidClaimSet;
+
+import reactor.core.publisher.Mono;
+
+public class AuthoritySetReactiveAuthorizationManagerTest {
+
+	@Test
+	public void whenAnyRequiredAuthorityIsGrantedThenAccessIsGranted() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE", "ROLE_USER");
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("NICE"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAnyAuthority("SUPER_COOL", "NICE"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("SUPER_COOL"), Mono.just(auth))).isFalse();
+	}
+
+	@Test
+	public void whenRolesAreRequiredThenPrefixIsAddedIfMissing() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "ROLE_USER");
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasRole("USER"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAnyRole("ADMIN", "ROLE_USER"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("USER"), Mono.just(auth))).isFalse();
+	}
+
+	@Test
+	public void whenRoleHierarchyWouldReachRequiredRoleThenAccessIsDenied() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "ROLE_ADMIN");
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasRole("ADMIN"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasRole("USER"), Mono.just(auth))).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsMissingOrNotAuthenticatedThenAccessIsDenied() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE");
+		auth.setAuthenticated(false);
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("NICE"), Mono.just(auth))).isFalse();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("NICE"), Mono.empty())).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsOAuthenticationThenItsAuthoritySetIsUsed() {
+		final var auth = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(new SimpleGrantedAuthority("NICE")), "token");
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAnyAuthority("SUPER_COOL", "NICE"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAnyRole("NICE"), Mono.just(auth))).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsNotOAuthenticationThenGrantedAuthoritiesAreNotRegistered() {
+		final var granted = "AuthoritySetReactiveAuthorizationManagerTest_GRANTED_ONLY";
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", granted, "NICE");
+
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("NICE"), Mono.just(auth))).isTrue();
+		assertThat(isGranted(AuthoritySetReactiveAuthorizationManager.hasAuthority("SUPER_COOL"), Mono.just(auth))).isFalse();
+		assertThat(AuthorityRegistry.indexOf(granted)).isNegative();
+	}
+
+	private static boolean isGranted(AuthoritySetReactiveAuthorizationManager<Object> manager, Mono<? extends Authentication> auth) {
+		return manager.check(auth.map(Authentication.class::cast), new Object()).block(Duration.ofSeconds(1)).isGranted();
+	}
+}
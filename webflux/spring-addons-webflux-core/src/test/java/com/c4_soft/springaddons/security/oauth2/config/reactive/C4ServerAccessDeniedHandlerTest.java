@@ -0,0 +1,71 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class C4ServerAccessDeniedHandlerTest {
+	private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+	@Test
+	public void whenProblemDetailsAreDisabledThenMessageIsSentAsText() {
+		final var exchange = handle(new C4ServerAccessDeniedHandler(false), "Accès refusé");
+
+		final var response = exchange.getResponse();
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(response.getHeaders().getContentType()).isEqualTo(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+		assertThat(response.getHeaders().getContentLength()).isEqualTo("Accès refusé".getBytes(StandardCharsets.UTF_8).length);
+		assertThat(response.getBodyAsString().block(TIMEOUT)).isEqualTo("Accès refusé");
+	}
+
+	@Test
+	public void whenProblemDetailsAreEnabledThenMessageIsSentAsEscapedProblemJson() {
+		final var exchange = handle(new C4ServerAccessDeniedHandler(true), "Not \"yours\"\\\n\r\tnope\u0001");
+
+		final var response = exchange.getResponse();
+		final var expected = "{\"type\":\"about:blank\",\"title\":\"Forbidden\",\"status\":403,\"detail\":\"Not \\\"yours\\\"\\\\\\n\\r\\tnope\\u0001\"}";
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON);
+		assertThat(response.getHeaders().getContentLength()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8).length);
+		assertThat(response.getBodyAsString().block(TIMEOUT)).isEqualTo(expected);
+	}
+
+	@Test
+	public void whenMessageIsNullThenBodyHasNoDetail() {
+		final var problem = handle(new C4ServerAccessDeniedHandler(true), null).getResponse();
+		assertThat(problem.getBodyAsString().block(TIMEOUT)).isEqualTo("{\"type\":\"about:blank\",\"title\":\"Forbidden\",\"status\":403}");
+
+		final var text = handle(new C4ServerAccessDeniedHandler(false), null).getResponse();
+		assertThat(text.getHeaders().getContentLength()).isZero();
+	}
+
+	@Test
+	public void whenManyDistinctMessagesThenOnlyFirstBodiesAreCachedAndOthersAreStillSent() {
+		final var handler = new C4ServerAccessDeniedHandler(false);
+
+		for (var i = 0; i < 70; ++i) {
+			assertThat(handle(handler, "denied " + i).getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("denied " + i);
+		}
+		assertThat(handle(handler, "denied 69").getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("denied 69");
+
+		@SuppressWarnings("unchecked")
+		final var bodies = (Map<String, byte[]>) ReflectionTestUtils.getField(handler, "bodies");
+		assertThat(bodies).hasSize(64).containsKey("denied 0").doesNotContainKey("denied 64");
+	}
+
+	private static MockServerWebExchange handle(C4ServerAccessDeniedHandler handler, String message) {
+		final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/greet"));
+		handler.handle(exchange, new AccessDeniedException(message)).block(TIMEOUT);
+		return exchange;
+	}
+}
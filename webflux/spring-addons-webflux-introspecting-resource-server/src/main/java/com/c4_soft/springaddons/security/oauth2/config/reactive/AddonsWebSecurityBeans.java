@@ -1,24 +1,24 @@
 package com.c4_soft.springaddons.security.oauth2.config.reactive;
 
-import java.nio.charset.Charset;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.Authentication;
@@ -27,19 +27,28 @@ import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
 import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthentication;
+import org.springframework.security.oauth2.server.resource.introspection.NimbusReactiveOpaqueTokenIntrospector;
 import org.springframework.security.oauth2.server.resource.introspection.ReactiveOpaqueTokenAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.introspection.ReactiveOpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.web.server.authentication.ServerBearerTokenAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
 import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
 import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
-import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
-import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.c4_soft.springaddons.security.oauth2.TokenCacheMetrics;
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.OAuth2AuthoritiesConverter;
 import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
+import com.c4_soft.springaddons.starter.webclient.C4WebClientBuilderFactoryService;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
  * <p>
@@ -70,12 +79,35 @@ import reactor.core.publisher.Mono;
  * <li><b>ReactiveAuthenticationManagerResolver</b>: required to be able to
  * define more than one token issuer until
  * https://github.com/spring-projects/spring-boot/issues/30108 is solved</li>
+ * <li><b>ReactiveOpaqueTokenIntrospector</b>: extract authorities, shares
+ * concurrent introspections of a same token, optionally caches
+ * introspection results and validates locally JWT access-tokens from
+ * configured issuers</li>
+ * <li><b>introspectionConnectionProvider</b>: connection pool dedicated to
+ * introspection requests</li>
+ * <li><b>introspectionCache</b>: if enabled in
+ * {@link SpringAddonsSecurityProperties}, caches introspection results by
+ * access-token (exposed as Micrometer metrics when available)</li>
+ * <li><b>JwkSetCache</b>: if local JWT validation is enabled in
+ * {@link SpringAddonsSecurityProperties}, JWK sets of configured issuers,
+ * refreshed in the background</li>
  * </ul>
+ * <p>
+ * Introspection requests are sent with a WebClient built by
+ * spring-addons-starters-webclient: <code>http_proxy</code> and
+ * <code>no_proxy</code> environment variables (or
+ * "com.c4-soft.springaddons.proxy" properties) apply to calls to the
+ * introspection end-point. This starter auto-configuration is not conditional:
+ * it also registers a C4WebClientBuilderFactoryService and its own shared
+ * connection pool ("com.c4-soft.springaddons.webclient.pool"), in addition to
+ * introspectionConnectionProvider which is the only one used for
+ * introspection.
+ * </p>
  *
  * @author Jerome Wacongne ch4mp&#64;c4-soft.com
  */
 @EnableWebFluxSecurity
-@AutoConfiguration
+@AutoConfiguration(before = ReactiveOAuth2ResourceServerAutoConfiguration.class)
 @Slf4j
 @Import({ AddonsSecurityBeans.class })
 public class AddonsWebSecurityBeans {
@@ -127,6 +159,11 @@ public class AddonsWebSecurityBeans {
 
         http.oauth2ResourceServer().opaqueToken().authenticationConverter(introspectionAuthenticationConverter);
 
+        final var permitAll = new PermitAllServerWebExchangeMatcher(addonsProperties.getPermitAll());
+        if (addonsProperties.isPermitAllSkipsBearerToken()) {
+            http.oauth2ResourceServer().bearerTokenConverter(permitAll.skipBearerToken(new ServerBearerTokenAuthenticationConverter()));
+        }
+
         if (addonsProperties.getPermitAll().length > 0) {
             http.anonymous();
         }
@@ -171,7 +208,7 @@ public class AddonsWebSecurityBeans {
         }
 
         authorizePostProcessor.authorizeHttpRequests(
-                http.authorizeExchange().pathMatchers(addonsProperties.getPermitAll()).permitAll());
+                http.authorizeExchange().matchers(permitAll).permitAll());
 
         return httpPostProcessor.process(http).build();
     }
@@ -207,16 +244,126 @@ public class AddonsWebSecurityBeans {
     private CorsConfigurationSource corsConfigurationSource(SpringAddonsSecurityProperties securityProperties) {
         log.debug("Building default CorsConfigurationSource with: {}",
                 Stream.of(securityProperties.getCors()).toList());
-        final var source = new UrlBasedCorsConfigurationSource();
-        for (final var corsProps : securityProperties.getCors()) {
-            final var configuration = new CorsConfiguration();
-            configuration.setAllowedOrigins(Arrays.asList(corsProps.getAllowedOrigins()));
-            configuration.setAllowedMethods(Arrays.asList(corsProps.getAllowedMethods()));
-            configuration.setAllowedHeaders(Arrays.asList(corsProps.getAllowedHeaders()));
-            configuration.setExposedHeaders(Arrays.asList(corsProps.getExposedHeaders()));
-            source.registerCorsConfiguration(corsProps.getPath(), configuration);
-        }
-        return source;
+        return new CompiledCorsConfigurationSource(securityProperties.getCors());
+    }
+
+    /**
+     * Connection pool dedicated to introspection requests, tuned with
+     * "com.c4-soft.springaddons.security.introspection.pool" properties
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a connection pool for introspection requests
+     */
+    @ConditionalOnMissingBean(value = ReactiveOpaqueTokenIntrospector.class, name = "introspectionConnectionProvider")
+    @ConditionalOnProperty(name = "spring.security.oauth2.resourceserver.opaquetoken.introspection-uri")
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider introspectionConnectionProvider(SpringAddonsSecurityProperties addonsProperties) {
+        final var poolProps = addonsProperties.getIntrospection().getPool();
+        log.debug("Building introspection ConnectionProvider with: {}", poolProps);
+        return ConnectionProvider.builder("c4-introspection")
+                .maxConnections(poolProps.getMaxConnections())
+                .pendingAcquireMaxCount(poolProps.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(poolProps.getPendingAcquireTimeout())
+                .maxIdleTime(poolProps.getMaxIdleTime())
+                .evictInBackground(poolProps.getEvictionInterval())
+                .build();
+    }
+
+    /**
+     * Cache for introspection results (with already mapped authorities)
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a cache of introspection results by access-token
+     */
+    @ConditionalOnMissingBean(name = "introspectionCache")
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.cache.enabled", havingValue = "true")
+    @Bean
+    TokenCache<OAuth2AuthenticatedPrincipal> introspectionCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var cacheProps = addonsProperties.getIntrospection().getCache();
+        log.debug("Building introspection results cache with: {}", cacheProps);
+        return new TokenCache<>(cacheProps.getMaxSize(), cacheProps.getMaxTtl());
+    }
+
+    /**
+     * Shared cache of JWK sets (one per issuer), refreshed in the background, to
+     * validate locally JWT access-tokens from configured issuers
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a JWK sets cache used for local JWT validation
+     */
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.local-jwt-validation", havingValue = "true")
+    @Bean
+    JwkSetCache jwkSetCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var jwkSetProps = addonsProperties.getJwt().getJwkSet();
+        log.debug("Building JwkSetCache with: {}", jwkSetProps);
+        return new JwkSetCache(
+                jwkSetProps.getRefreshInterval(),
+                jwkSetProps.getMinRefetchInterval(),
+                jwkSetProps.getConnectTimeout(),
+                jwkSetProps.getReadTimeout());
+    }
+
+    /**
+     * Introspector bean replacing spring-boot default one: sends introspection
+     * requests through the dedicated connection pool (and proxy, if configured),
+     * maps authorities with the {@link OAuth2AuthoritiesConverter}, shares
+     * concurrent introspections of a same token and, if enabled in
+     * {@link SpringAddonsSecurityProperties}, caches introspection results and
+     * validates locally JWT access-tokens from configured issuers
+     *
+     * @param oauth2Properties                "spring.security.oauth2.resourceserver"
+     *                                        configuration properties
+     *                                        (introspection end-point and client
+     *                                        credentials)
+     * @param addonsProperties                "com.c4-soft.springaddons.security"
+     *                                        configuration properties
+     * @param authoritiesConverter            converts access-token claims into
+     *                                        Spring authorities
+     * @param introspectionConnectionProvider connection pool for introspection
+     *                                        requests
+     * @param webClientBuilderFactory         applies proxy settings
+     *                                        (<code>http_proxy</code>,
+     *                                        <code>no_proxy</code> and
+     *                                        "com.c4-soft.springaddons.proxy")
+     *                                        to introspection requests
+     * @param introspectionCache              if present, introspection results
+     *                                        are cached by access-token
+     * @param jwkSetCache                     JWK sets for local JWT validation
+     *                                        (present only if enabled)
+     * @return an introspector mapping authorities and coalescing concurrent
+     *         introspections
+     */
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "spring.security.oauth2.resourceserver.opaquetoken.introspection-uri")
+    @Bean
+    ReactiveOpaqueTokenIntrospector introspector(
+            OAuth2ResourceServerProperties oauth2Properties,
+            SpringAddonsSecurityProperties addonsProperties,
+            Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+            @Qualifier("introspectionConnectionProvider") ConnectionProvider introspectionConnectionProvider,
+            C4WebClientBuilderFactoryService webClientBuilderFactory,
+            Optional<TokenCache<OAuth2AuthenticatedPrincipal>> introspectionCache,
+            Optional<JwkSetCache> jwkSetCache) {
+        final var opaqueTokenProps = oauth2Properties.getOpaquetoken();
+        log.debug("Building default C4ReactiveOpaqueTokenIntrospector with: {}", opaqueTokenProps.getIntrospectionUri());
+        final var httpClient = HttpClient.create(introspectionConnectionProvider)
+                .keepAlive(addonsProperties.getIntrospection().getPool().isKeepAlive());
+        final var webClient = webClientBuilderFactory.get(null, httpClient)
+                .defaultHeaders(headers -> headers.setBasicAuth(opaqueTokenProps.getClientId(), opaqueTokenProps.getClientSecret()))
+                .build();
+        final ReactiveOpaqueTokenIntrospector remote = new NimbusReactiveOpaqueTokenIntrospector(
+                opaqueTokenProps.getIntrospectionUri(),
+                webClient);
+        return new C4ReactiveOpaqueTokenIntrospector(
+                addonsProperties.getIntrospection().isLocalJwtValidation()
+                        ? new HybridReactiveOpaqueTokenIntrospector(remote, addonsProperties.getIssuers(), jwkSetCache.orElseThrow())
+                        : remote,
+                authoritiesConverter,
+                introspectionCache.orElse(null));
     }
 
     /**
@@ -227,6 +374,9 @@ public class AddonsWebSecurityBeans {
      *                              authorities
      * @param authenticationFactory builds an {@link Authentication} instance from
      *                              access-token string and claims
+     * @param introspector          if a
+     *                              {@link C4ReactiveOpaqueTokenIntrospector}, the
+     *                              authorities it already mapped are used as is
      * @return a converter from successful introspection result to
      *         {@link Authentication} instance
      */
@@ -234,7 +384,9 @@ public class AddonsWebSecurityBeans {
     @Bean
     ReactiveOpaqueTokenAuthenticationConverter introspectionAuthenticationConverter(
             Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
-            Optional<OAuth2AuthenticationFactory> authenticationFactory) {
+            Optional<OAuth2AuthenticationFactory> authenticationFactory,
+            Optional<ReactiveOpaqueTokenIntrospector> introspector) {
+        final var isAuthoritiesMappedByIntrospector = introspector.filter(C4ReactiveOpaqueTokenIntrospector.class::isInstance).isPresent();
         return (String introspectedToken, OAuth2AuthenticatedPrincipal authenticatedPrincipal) -> authenticationFactory
                 .map(af -> af.build(introspectedToken, authenticatedPrincipal.getAttributes())
                         .map(Authentication.class::cast))
@@ -249,28 +401,36 @@ public class AddonsWebSecurityBeans {
                                                         .getAttribute(OAuth2TokenIntrospectionClaimNames.IAT),
                                                 authenticatedPrincipal
                                                         .getAttribute(OAuth2TokenIntrospectionClaimNames.EXP)),
-                                        authoritiesConverter.convert(authenticatedPrincipal.getAttributes()))));
+                                        isAuthoritiesMappedByIntrospector
+                                                ? authenticatedPrincipal.getAuthorities()
+                                                : authoritiesConverter.convert(authenticatedPrincipal.getAttributes()))));
     }
 
     /**
-     * Switch from default behavior of redirecting unauthorized users to login (302)
-     * to returning 401 (unauthorized)
+     * Access-denied handler answering 403 (forbidden) to authenticated users
+     * with a pre-encoded body: text/plain message or RFC 7807 problem detail
+     * (unauthorized requests are answered 401 by the authentication entry-point)
      *
-     * @return a bean to switch from default behavior of redirecting unauthorized
-     *         users to login (302) to returning 401 (unauthorized)
+     * @param addonsProperties "com.c4-soft.springaddons.security" configuration
+     *                         properties
+     * @return a handler answering 403 with a pre-encoded body
      */
     @ConditionalOnMissingBean
     @Bean
-    ServerAccessDeniedHandler serverAccessDeniedHandler() {
+    ServerAccessDeniedHandler serverAccessDeniedHandler(SpringAddonsSecurityProperties addonsProperties) {
         log.debug("Building default ServerAccessDeniedHandler");
-        return (var exchange, var ex) -> exchange.getPrincipal().flatMap(principal -> {
-            var response = exchange.getResponse();
-            response.setStatusCode(
-                    principal instanceof AnonymousAuthenticationToken ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN);
-            response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
-            var dataBufferFactory = response.bufferFactory();
-            var buffer = dataBufferFactory.wrap(ex.getMessage().getBytes(Charset.defaultCharset()));
-            return response.writeWith(Mono.just(buffer)).doOnError(error -> DataBufferUtils.release(buffer));
-        });
+        return new C4ServerAccessDeniedHandler(addonsProperties.isAccessDeniedProblemDetails());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.cache.enabled", havingValue = "true")
+    static class IntrospectionCacheMetricsConfiguration {
+
+        @ConditionalOnMissingBean(name = "introspectionCacheMetrics")
+        @Bean
+        MeterBinder introspectionCacheMetrics(TokenCache<OAuth2AuthenticatedPrincipal> introspectionCache) {
+            return new TokenCacheMetrics("introspection", introspectionCache);
+        }
     }
-}
\ No newline at end of file
+}
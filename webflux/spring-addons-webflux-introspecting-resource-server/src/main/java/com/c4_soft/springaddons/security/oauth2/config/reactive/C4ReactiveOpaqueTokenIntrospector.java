@@ -0,0 +1,116 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.NimbusReactiveOpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.ReactiveOpaqueTokenIntrospector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Introspects access-tokens and maps authorities with the provided converter.
+ * </p>
+ * <p>
+ * Concurrent introspections of the same token share a single call to the authorization-server (and its result). If a {@link TokenCache}
+ * is provided, introspection results (with already converted authorities) are also cached until the earliest of token expiry and cache
+ * max-TTL.
+ * </p>
+ * <p>
+ * Provide a {@link WebClient} built on a dedicated connection pool (and configured with client credentials) to avoid connection setup and
+ * pool starvation under load.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class C4ReactiveOpaqueTokenIntrospector implements ReactiveOpaqueTokenIntrospector {
+	private final ReactiveOpaqueTokenIntrospector delegate;
+	private final Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter;
+	private final Optional<TokenCache<OAuth2AuthenticatedPrincipal>> cache;
+	private final Map<String, Mono<OAuth2AuthenticatedPrincipal>> inFlight = new ConcurrentHashMap<>();
+
+	public C4ReactiveOpaqueTokenIntrospector(
+			String introspectionUri,
+			String clientId,
+			String clientSecret,
+			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+			@Nullable TokenCache<OAuth2AuthenticatedPrincipal> cache) {
+		this(new NimbusReactiveOpaqueTokenIntrospector(introspectionUri, clientId, clientSecret), authoritiesConverter, cache);
+	}
+
+	/**
+	 * @param introspectionUri     the authorization-server introspection end-point
+	 * @param webClient            the client to send introspection requests with. It must be configured to authenticate to the
+	 *                             authorization-server (basic auth with client credentials most frequently)
+	 * @param authoritiesConverter maps introspection result attributes to Spring authorities
+	 * @param cache                optional introspection results cache
+	 */
+	public C4ReactiveOpaqueTokenIntrospector(
+			String introspectionUri,
+			WebClient webClient,
+			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+			@Nullable TokenCache<OAuth2AuthenticatedPrincipal> cache) {
+		this(new NimbusReactiveOpaqueTokenIntrospector(introspectionUri, webClient), authoritiesConverter, cache);
+	}
+
+	public C4ReactiveOpaqueTokenIntrospector(
+			ReactiveOpaqueTokenIntrospector delegate,
+			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+			@Nullable TokenCache<OAuth2AuthenticatedPrincipal> cache) {
+		this.delegate = delegate;
+		this.authoritiesConverter = authoritiesConverter;
+		this.cache = Optional.ofNullable(cache);
+	}
+
+	@Override
+	public Mono<OAuth2AuthenticatedPrincipal> introspect(String token) {
+		return Mono.defer(() -> {
+			final var cached = cache.map(c -> c.get(token)).orElse(null);
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+			// registered only when subscribed, and removed only by the introspection which registered it
+			final var introspection = new AtomicReference<Mono<OAuth2AuthenticatedPrincipal>>();
+			introspection.set(doIntrospect(token).doFinally(signal -> inFlight.remove(token, introspection.get())).cache());
+			final var pending = inFlight.putIfAbsent(token, introspection.get());
+			return pending == null ? introspection.get() : pending;
+		});
+	}
+
+	/**
+	 * @return the introspection results cache (to expose hit, miss and eviction counters for instance)
+	 */
+	public Optional<TokenCache<OAuth2AuthenticatedPrincipal>> getCache() {
+		return cache;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Mono<OAuth2AuthenticatedPrincipal> doIntrospect(String token) {
+		return Mono.defer(() -> delegate.introspect(token)).map(auth -> {
+			final var authorities = authoritiesConverter.convert(auth.getAttributes());
+			final OAuth2AuthenticatedPrincipal principal =
+					new OAuth2IntrospectionAuthenticatedPrincipal(auth.getAttributes(), (Collection<GrantedAuthority>) authorities);
+			cache.ifPresent(c -> c.put(token, principal, getExpiresAt(principal)));
+			return principal;
+		});
+	}
+
+	private static @Nullable Instant getExpiresAt(OAuth2AuthenticatedPrincipal principal) {
+		return principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP) instanceof Instant exp ? exp : null;
+	}
+
+}
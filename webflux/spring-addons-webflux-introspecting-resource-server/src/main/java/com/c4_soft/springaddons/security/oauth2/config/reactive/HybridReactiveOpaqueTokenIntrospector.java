@@ -0,0 +1,143 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.ReactiveOpaqueTokenIntrospector;
+
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * <p>
+ * Validates locally access-tokens which are JWS issued by one of the configured issuers (against the issuer JWK set, from the shared
+ * {@link JwkSetCache}) and delegates to remote introspection for all other tokens.
+ * </p>
+ * <p>
+ * JWT decoders are created lazily, when a token from an issuer is validated for the first time (OpenID configuration discovery and JWK set
+ * retrieval run on a bounded elastic scheduler). If the decoder can't be created, the token is introspected remotely and the decoder
+ * creation is retried with next token from that issuer. Tokens are decoded on the calling thread, unless the JWK set has to be fetched
+ * (unknown key). Invalid JWTs from a configured issuer are rejected without remote introspection. Issuers are matched ignoring trailing
+ * slashes.
+ * </p>
+ *
+ * @author ch4mp
+ */
+@Slf4j
+public class HybridReactiveOpaqueTokenIntrospector implements ReactiveOpaqueTokenIntrospector {
+	private final ReactiveOpaqueTokenIntrospector remote;
+	private final Map<String, IssuerProperties> issuers;
+	private final JwkSetCache jwkSetCache;
+	private final Map<String, Mono<C4JwtDecoder>> decoders = new ConcurrentHashMap<>();
+
+	public HybridReactiveOpaqueTokenIntrospector(ReactiveOpaqueTokenIntrospector remote, IssuerProperties[] issuers, JwkSetCache jwkSetCache) {
+		this.remote = remote;
+		this.issuers = Stream
+				.of(issuers)
+				.collect(Collectors.toMap(issuer -> normalize(issuer.getLocation().toString()), Function.identity(), (first, second) -> first));
+		this.jwkSetCache = jwkSetCache;
+	}
+
+	@Override
+	public Mono<OAuth2AuthenticatedPrincipal> introspect(String token) {
+		final var jws = parseJws(token);
+		final var issuer = jws.flatMap(this::getIssuer);
+		if (issuer.isEmpty()) {
+			return remote.introspect(token);
+		}
+		return getDecoder(issuer.get()).flatMap(decoder -> decode(decoder, jws.get(), token)).switchIfEmpty(Mono.defer(() -> remote.introspect(token)));
+	}
+
+	private Optional<SignedJWT> parseJws(String token) {
+		if (issuers.isEmpty()) {
+			return Optional.empty();
+		}
+		try {
+			if (JWTParser.parse(token) instanceof SignedJWT jws) {
+				return Optional.of(jws);
+			}
+		} catch (ParseException e) {
+			// not a JWT: an opaque token to introspect
+		}
+		return Optional.empty();
+	}
+
+	private Optional<IssuerProperties> getIssuer(SignedJWT jws) {
+		try {
+			return Optional.ofNullable(jws.getJWTClaimsSet().getIssuer()).map(iss -> issuers.get(normalize(iss)));
+		} catch (ParseException e) {
+			return Optional.empty();
+		}
+	}
+
+	/*
+	 * The map only holds lazy (cached) publishers: discovery and JWK set retrieval run when subscribed, out of the map lock. Failures are
+	 * not cached and complete empty, for the token to be introspected remotely.
+	 */
+	private Mono<C4JwtDecoder> getDecoder(IssuerProperties issuer) {
+		return decoders.computeIfAbsent(normalize(issuer.getLocation().toString()), iss -> buildDecoder(issuer, jwkSetCache)).onErrorResume(e -> {
+			if (e instanceof IllegalArgumentException || e instanceof IllegalStateException || e instanceof KeySourceException) {
+				log.warn("Failed to build JWT decoder for {}, falling back to introspection: {}", issuer.getLocation(), e.getMessage());
+				return Mono.empty();
+			}
+			return Mono.error(e);
+		});
+	}
+
+	private static Mono<C4JwtDecoder> buildDecoder(IssuerProperties issuer, JwkSetCache jwkSetCache) {
+		return Mono.fromCallable(() -> {
+			final var jwkSource = jwkSetCache.getJwkSource(issuer);
+			jwkSource.load();
+			final var decoder = new C4JwtDecoder(jwkSource);
+			decoder.setJwtValidator(jwtValidator(issuer));
+			return decoder;
+		}).subscribeOn(Schedulers.boundedElastic()).cache(decoder -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+	}
+
+	private static Mono<OAuth2AuthenticatedPrincipal> decode(C4JwtDecoder decoder, SignedJWT jws, String token) {
+		final var decoding = Mono.fromCallable(() -> decoder.decode(jws, token));
+		return (decoder.isBlocking(jws) ? decoding.subscribeOn(Schedulers.boundedElastic()) : decoding)
+				.<OAuth2AuthenticatedPrincipal>map(jwt -> new OAuth2IntrospectionAuthenticatedPrincipal(jwt.getClaims(), List.of()))
+				.onErrorMap(JwtException.class, e -> new BadOpaqueTokenException(e.getMessage(), e));
+	}
+
+	private static OAuth2TokenValidator<Jwt> jwtValidator(IssuerProperties issuer) {
+		final var expectedIssuer = normalize(issuer.getLocation().toString());
+		return new DelegatingOAuth2TokenValidator<>(
+				new JwtTimestampValidator(),
+				new JwtClaimValidator<Object>(JwtClaimNames.ISS, iss -> iss != null && expectedIssuer.equals(normalize(iss.toString()))));
+	}
+
+	private static String normalize(String issuer) {
+		var end = issuer.length();
+		while (end > 0 && issuer.charAt(end - 1) == '/') {
+			--end;
+		}
+		return end == issuer.length() ? issuer : issuer.substring(0, end);
+	}
+}
@@ -0,0 +1,77 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.ReactiveOpaqueTokenIntrospector;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class C4ReactiveOpaqueTokenIntrospectorTest {
+
+	@Test
+	public void whenConcurrentIntrospectionsOfSameTokenThenASingleUpstreamCallIsIssued() {
+		final var upstream = Sinks.<OAuth2AuthenticatedPrincipal>one();
+		final var delegate = mock(ReactiveOpaqueTokenIntrospector.class);
+		when(delegate.introspect(any())).thenReturn(upstream.asMono());
+		final var introspector = new C4ReactiveOpaqueTokenIntrospector(delegate, claims -> List.of(new SimpleGrantedAuthority("NICE")), null);
+
+		final var first = new AtomicReference<OAuth2AuthenticatedPrincipal>();
+		final var second = new AtomicReference<OAuth2AuthenticatedPrincipal>();
+		introspector.introspect("token").subscribe(first::set);
+		introspector.introspect("token").subscribe(second::set);
+		upstream.tryEmitValue(principal());
+
+		verify(delegate, times(1)).introspect("token");
+		assertThat(first.get()).isNotNull();
+		assertThat(second.get()).isSameAs(first.get());
+		assertThat(first.get().getAuthorities()).hasSize(1);
+	}
+
+	@Test
+	public void whenIntrospectionIsNotSubscribedThenNothingIsSentNorRetained() {
+		final var delegate = mock(ReactiveOpaqueTokenIntrospector.class);
+		when(delegate.introspect(any())).thenAnswer(invocation -> Mono.just(principal()));
+		final var introspector = new C4ReactiveOpaqueTokenIntrospector(delegate, claims -> List.of(), null);
+
+		introspector.introspect("token");
+		verifyNoInteractions(delegate);
+
+		introspector.introspect("token").block(Duration.ofSeconds(1));
+		introspector.introspect("token").block(Duration.ofSeconds(1));
+		verify(delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void whenIntrospectionFailsThenNextCallIsIntrospectedAgain() {
+		final var delegate = mock(ReactiveOpaqueTokenIntrospector.class);
+		when(delegate.introspect(any())).thenReturn(Mono.error(new BadOpaqueTokenException("invalid")), Mono.just(principal()));
+		final var introspector = new C4ReactiveOpaqueTokenIntrospector(delegate, claims -> List.of(), null);
+
+		assertThatThrownBy(() -> introspector.introspect("token").block(Duration.ofSeconds(1))).isInstanceOf(BadOpaqueTokenException.class);
+		assertThat(introspector.introspect("token").block(Duration.ofSeconds(1))).isNotNull();
+		verify(delegate, times(2)).introspect("token");
+	}
+
+	private static OAuth2AuthenticatedPrincipal principal() {
+		return new OAuth2IntrospectionAuthenticatedPrincipal(Map.of(OAuth2TokenIntrospectionClaimNames.SUB, "ch4mpy"), List.of());
+	}
+}
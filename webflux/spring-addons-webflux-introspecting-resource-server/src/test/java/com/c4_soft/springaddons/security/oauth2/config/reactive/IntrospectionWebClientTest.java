@@ -0,0 +1,112 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
+import com.c4_soft.springaddons.starter.webclient.C4ProxySettings;
+import com.c4_soft.springaddons.starter.webclient.C4WebClientBuilderFactoryService;
+import com.c4_soft.springaddons.starter.webclient.C4WebClientPoolSettings;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+public class IntrospectionWebClientTest {
+	private final AtomicReference<String> introspectionAuthorization = new AtomicReference<>();
+	private final AtomicReference<String> proxyRequest = new AtomicReference<>();
+	private DisposableServer authorizationServer;
+	private DisposableServer proxy;
+	private ConnectionProvider connectionProvider;
+	private C4WebClientBuilderFactoryService webClientBuilderFactory;
+
+	@Before
+	public void setUp() {
+		authorizationServer = HttpServer.create().port(0).handle((request, response) -> {
+			introspectionAuthorization.set(request.requestHeaders().get(HttpHeaders.AUTHORIZATION));
+			return response
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.sendString(Mono.just("{\"active\":true,\"sub\":\"ch4mpy\"}"))
+					.then();
+		}).bindNow();
+		proxy = HttpServer.create().port(0).handle((request, response) -> {
+			proxyRequest.set(request.method().name() + " " + request.uri());
+			return response.status(HttpResponseStatus.FORBIDDEN).send();
+		}).bindNow();
+	}
+
+	@After
+	public void tearDown() {
+		if (connectionProvider != null) {
+			connectionProvider.dispose();
+		}
+		if (webClientBuilderFactory != null) {
+			webClientBuilderFactory.destroy();
+		}
+		authorizationServer.disposeNow();
+		proxy.disposeNow();
+	}
+
+	@Test
+	public void whenNoProxyThenIntrospectionIsSentWithClientCredentialsThroughDedicatedPool() throws MalformedURLException {
+		final var addonsProperties = new SpringAddonsSecurityProperties();
+		addonsProperties.getIntrospection().getPool().setMaxConnections(7);
+
+		final var introspector = introspector(addonsProperties, proxySettings(null));
+		final var principal = introspector.introspect("opaque-token").block(Duration.ofSeconds(5));
+
+		assertThat(connectionProvider.maxConnections()).isEqualTo(7);
+		assertThat(principal.getName()).isEqualTo("ch4mpy");
+		assertThat(introspectionAuthorization.get())
+				.isEqualTo("Basic " + Base64.getEncoder().encodeToString("introspecting-client:secret".getBytes(StandardCharsets.UTF_8)));
+		assertThat(proxyRequest.get()).isNull();
+	}
+
+	@Test
+	public void whenProxyIsConfiguredThenIntrospectionGoesThroughProxy() throws MalformedURLException {
+		final var introspector = introspector(new SpringAddonsSecurityProperties(), proxySettings(proxy.port()));
+
+		assertThatThrownBy(() -> introspector.introspect("opaque-token").block(Duration.ofSeconds(5))).isInstanceOf(RuntimeException.class);
+
+		assertThat(proxyRequest.get()).isEqualTo("CONNECT localhost:" + authorizationServer.port());
+		assertThat(introspectionAuthorization.get()).isNull();
+	}
+
+	private C4ReactiveOpaqueTokenIntrospector introspector(SpringAddonsSecurityProperties addonsProperties, C4ProxySettings proxySettings) {
+		final var oauth2Properties = new OAuth2ResourceServerProperties();
+		oauth2Properties.getOpaquetoken().setIntrospectionUri("http://localhost:%d/introspect".formatted(authorizationServer.port()));
+		oauth2Properties.getOpaquetoken().setClientId("introspecting-client");
+		oauth2Properties.getOpaquetoken().setClientSecret("secret");
+
+		final var conf = new AddonsWebSecurityBeans();
+		connectionProvider = conf.introspectionConnectionProvider(addonsProperties);
+		webClientBuilderFactory = new C4WebClientBuilderFactoryService(proxySettings, new C4WebClientPoolSettings());
+		return (C4ReactiveOpaqueTokenIntrospector) conf
+				.introspector(oauth2Properties, addonsProperties, claims -> List.of(), connectionProvider, webClientBuilderFactory, Optional.empty(), Optional.empty());
+	}
+
+	private static C4ProxySettings proxySettings(Integer proxyPort) throws MalformedURLException {
+		final var settings = new C4ProxySettings();
+		settings.setHttpProxy(null);
+		settings.setHost(proxyPort == null ? null : "localhost");
+		settings.setPort(proxyPort);
+		return settings;
+	}
+}
@@ -0,0 +1,135 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTParser;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * <p>
+ * Multi-tenant alternative to
+ * {@link org.springframework.security.oauth2.server.resource.authentication.JwtIssuerReactiveAuthenticationManagerResolver}: the token is
+ * parsed once, its "iss" claim selects the decoder in a hash map and the same parsed object is used for signature verification and claims
+ * conversion.
+ * </p>
+ * <p>
+ * Decoders are provided as suppliers so that they can be created lazily: the first time a token from an issuer is received, the supplier
+ * is called on a bounded elastic scheduler (it might block on OpenID configuration discovery and JWK set retrieval) and its result is then
+ * cached.
+ * </p>
+ * <p>
+ * Tokens are decoded on the calling thread, unless verifying the signature requires to fetch the JWK set (see
+ * {@link C4JwtDecoder#isBlocking(JWT)}), in which case decoding runs on a bounded elastic scheduler.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class C4JwtIssuerReactiveAuthenticationManagerResolver implements ReactiveAuthenticationManagerResolver<ServerWebExchange> {
+	private final Mono<ReactiveAuthenticationManager> authenticationManager;
+
+	/**
+	 * @param decoders                   JWT decoders (or suppliers for it) by issuer location
+	 * @param jwtAuthenticationConverter converts from a {@link Jwt} to an {@link Authentication} implementation
+	 * @param cache                      optional authentications cache
+	 */
+	public C4JwtIssuerReactiveAuthenticationManagerResolver(
+			Map<String, ? extends Supplier<C4JwtDecoder>> decoders,
+			Converter<Jwt, ? extends Mono<? extends AbstractAuthenticationToken>> jwtAuthenticationConverter,
+			@Nullable TokenCache<Authentication> cache) {
+		final var manager = new IssuerJwtReactiveAuthenticationManager(decoders, jwtAuthenticationConverter);
+		this.authenticationManager = Mono.just(cache == null ? manager : new CachingReactiveAuthenticationManager(manager, cache));
+	}
+
+	@Override
+	public Mono<ReactiveAuthenticationManager> resolve(ServerWebExchange context) {
+		return authenticationManager;
+	}
+
+	static class IssuerJwtReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+		private final Map<String, Mono<C4JwtDecoder>> decoders;
+		private final Converter<Jwt, ? extends Mono<? extends AbstractAuthenticationToken>> jwtAuthenticationConverter;
+
+		IssuerJwtReactiveAuthenticationManager(
+				Map<String, ? extends Supplier<C4JwtDecoder>> decoders,
+				Converter<Jwt, ? extends Mono<? extends AbstractAuthenticationToken>> jwtAuthenticationConverter) {
+			final var lazyDecoders = new HashMap<String, Mono<C4JwtDecoder>>(decoders.size());
+			for (final var entry : decoders.entrySet()) {
+				lazyDecoders
+						.put(
+								entry.getKey(),
+								Mono
+										.fromSupplier(entry.getValue())
+										.subscribeOn(Schedulers.boundedElastic())
+										.cache(decoder -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO));
+			}
+			this.decoders = Map.copyOf(lazyDecoders);
+			this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+		}
+
+		@Override
+		public Mono<Authentication> authenticate(Authentication authentication) {
+			if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+				return Mono.empty();
+			}
+			final JWT parsed;
+			final String issuer;
+			try {
+				parsed = JWTParser.parse(bearer.getToken());
+				issuer = parsed.getJWTClaimsSet().getIssuer();
+			} catch (ParseException e) {
+				return Mono.error(new InvalidBearerTokenException("Invalid JWT: " + e.getMessage(), e));
+			}
+			final var decoder = issuer == null ? null : decoders.get(issuer);
+			if (decoder == null) {
+				return Mono.error(new InvalidBearerTokenException("Invalid issuer"));
+			}
+
+			return decoder
+					.onErrorMap(
+							e -> !(e instanceof JwtException),
+							e -> new AuthenticationServiceException("Failed to initialize JWT decoder for " + issuer + ": " + e.getMessage(), e))
+					.flatMap(d -> decode(d, parsed, bearer.getToken()))
+					.flatMap(jwtAuthenticationConverter::convert)
+					.cast(Authentication.class)
+					.onErrorMap(JwtException.class, IssuerJwtReactiveAuthenticationManager::onError);
+		}
+
+		/*
+		 * Decoding is CPU bound unless the JWK set has to be fetched (unknown key): only then is it moved to a bounded elastic scheduler
+		 */
+		private static Mono<Jwt> decode(C4JwtDecoder decoder, JWT parsed, String token) {
+			final var decoding = Mono.fromCallable(() -> decoder.decode(parsed, token));
+			return decoder.isBlocking(parsed) ? decoding.subscribeOn(Schedulers.boundedElastic()) : decoding;
+		}
+
+		private static RuntimeException onError(JwtException e) {
+			if (e instanceof BadJwtException) {
+				return new InvalidBearerTokenException(e.getMessage(), e);
+			}
+			return new AuthenticationServiceException(e.getMessage(), e);
+		}
+	}
+}
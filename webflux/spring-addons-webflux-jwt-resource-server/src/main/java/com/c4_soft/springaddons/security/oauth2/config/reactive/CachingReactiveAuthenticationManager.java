@@ -0,0 +1,38 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+import com.c4_soft.springaddons.security.oauth2.AuthenticationCache;
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive adapter of {@link AuthenticationCache}: authentications built by the delegate for bearer tokens are cached and each request
+ * gets its own copy.
+ *
+ * @author ch4mp
+ */
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+	private final ReactiveAuthenticationManager delegate;
+	private final AuthenticationCache cache;
+
+	public CachingReactiveAuthenticationManager(ReactiveAuthenticationManager delegate, TokenCache<Authentication> cache) {
+		this.delegate = delegate;
+		this.cache = new AuthenticationCache(cache);
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+			return delegate.authenticate(authentication);
+		}
+		final var cached = cache.get(bearer);
+		if (cached != null) {
+			return Mono.just(cached);
+		}
+		return delegate.authenticate(authentication).doOnNext(authenticated -> cache.put(bearer, authenticated));
+	}
+}
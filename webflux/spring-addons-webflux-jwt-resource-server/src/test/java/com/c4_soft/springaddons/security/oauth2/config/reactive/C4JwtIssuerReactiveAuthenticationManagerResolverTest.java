@@ -0,0 +1,176 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.c4_soft.springaddons.security.oauth2.config.RefreshingJwkSource;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import reactor.core.publisher.Mono;
+
+public class C4JwtIssuerReactiveAuthenticationManagerResolverTest {
+	private static final String ISSUER = "https://localhost/realms/test";
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final AtomicReference<String> decodingThread = new AtomicReference<>();
+	private ScheduledExecutorService scheduler;
+	private RSAKey k1;
+	private RSAKey k2;
+	private StubRetriever retriever;
+
+	@Before
+	public void setUp() throws JOSEException {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		k1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+		k2 = new RSAKeyGenerator(2048).keyID("k2").generate();
+		retriever = new StubRetriever(new JWKSet(k1.toPublicJWK()));
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void whenKeyIsKnownThenTokenIsDecodedOnCallingThread() throws Exception {
+		final var resolver = resolver(() -> decoder());
+		// decoder initialization (first token from the issuer) runs on a bounded elastic scheduler
+		authenticate(resolver, jws(k1, ISSUER, Instant.now().plusSeconds(60)));
+
+		final var authentication = authenticate(resolver, jws(k1, ISSUER, Instant.now().plusSeconds(60)));
+
+		assertThat(authentication.getName()).isEqualTo("ch4mpy");
+		assertThat(decodingThread.get()).isEqualTo(Thread.currentThread().getName());
+		assertThat(retriever.count).hasValue(1);
+	}
+
+	@Test
+	public void whenKeyIsUnknownThenJwkSetIsFetchedOnBoundedElasticScheduler() throws Exception {
+		final var resolver = resolver(() -> decoder());
+		authenticate(resolver, jws(k1, ISSUER, Instant.now().plusSeconds(60)));
+		retriever.jwkSet = new JWKSet(List.of(k1.toPublicJWK(), k2.toPublicJWK()));
+
+		final var authentication = authenticate(resolver, jws(k2, ISSUER, Instant.now().plusSeconds(60)));
+
+		assertThat(authentication.getName()).isEqualTo("ch4mpy");
+		assertThat(decodingThread.get()).startsWith("boundedElastic");
+		assertThat(retriever.count).hasValue(2);
+	}
+
+	@Test
+	public void whenTokenIsInvalidThenInvalidBearerTokenExceptionIsRaised() throws Exception {
+		final var resolver = resolver(() -> decoder());
+
+		assertThatThrownBy(() -> authenticate(resolver, jws(k1, ISSUER, Instant.now().minusSeconds(60))))
+				.isInstanceOf(InvalidBearerTokenException.class);
+		assertThatThrownBy(() -> authenticate(resolver, jws(k1, "https://localhost/realms/other", Instant.now().plusSeconds(60))))
+				.isInstanceOf(InvalidBearerTokenException.class);
+		assertThatThrownBy(() -> authenticate(resolver, "not-a-jwt")).isInstanceOf(InvalidBearerTokenException.class);
+	}
+
+	@Test
+	public void whenDecoderInitializationFailsThenAuthenticationServiceExceptionIsRaisedAndInitializationIsRetried() throws Exception {
+		final var attempts = new AtomicInteger();
+		final var resolver = resolver(() -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("discovery failed");
+			}
+			return decoder();
+		});
+		final var token = jws(k1, ISSUER, Instant.now().plusSeconds(60));
+
+		assertThatThrownBy(() -> authenticate(resolver, token)).isInstanceOf(AuthenticationServiceException.class);
+		assertThat(authenticate(resolver, token).getName()).isEqualTo("ch4mpy");
+		assertThat(attempts).hasValue(2);
+	}
+
+	private C4JwtIssuerReactiveAuthenticationManagerResolver resolver(Supplier<C4JwtDecoder> decoder) {
+		return new C4JwtIssuerReactiveAuthenticationManagerResolver(Map.of(ISSUER, decoder), jwt -> Mono.fromCallable(() -> {
+			decodingThread.set(Thread.currentThread().getName());
+			return new JwtAuthenticationToken(jwt, List.of(), jwt.getSubject());
+		}), null);
+	}
+
+	private C4JwtDecoder decoder() {
+		try {
+			final var jwkSource = new RefreshingJwkSource(
+					new URL("https://localhost/realms/test/certs"),
+					retriever,
+					Duration.ZERO,
+					Duration.ZERO,
+					scheduler,
+					Clock.systemUTC());
+			final var decoder = new C4JwtDecoder(jwkSource);
+			decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+			return decoder;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Authentication authenticate(C4JwtIssuerReactiveAuthenticationManagerResolver resolver, String token) {
+		return resolver.resolve(null).flatMap(manager -> manager.authenticate(new BearerTokenAuthenticationToken(token))).block(TIMEOUT);
+	}
+
+	private static String jws(RSAKey key, String iss, Instant exp) throws JOSEException {
+		final var claims = new JWTClaimsSet.Builder()
+				.issuer(iss)
+				.subject("ch4mpy")
+				.issueTime(Date.from(exp.minusSeconds(120)))
+				.expirationTime(Date.from(exp))
+				.build();
+		final var jws = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+		jws.sign(new RSASSASigner(key));
+		return jws.serialize();
+	}
+
+	private static class StubRetriever implements ResourceRetriever {
+		volatile JWKSet jwkSet;
+		final AtomicInteger count = new AtomicInteger();
+
+		StubRetriever(JWKSet jwkSet) {
+			this.jwkSet = jwkSet;
+		}
+
+		@Override
+		public Resource retrieveResource(URL url) {
+			count.incrementAndGet();
+			return new Resource(jwkSet.toString(), "application/json");
+		}
+	}
+}
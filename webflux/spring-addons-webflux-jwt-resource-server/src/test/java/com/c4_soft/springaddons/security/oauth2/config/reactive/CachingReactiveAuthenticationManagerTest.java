@@ -0,0 +1,176 @@
+package com.c4_soft.springaddons.security.oauth2.config.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+import com.c4_soft.springaddons.security.oauth2.OpenidClaimSet;
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+import reactor.core.publisher.Mono;
+
+public class CachingReactiveAuthenticationManagerTest {
+	private static final Duration TIMEOUT = Duration.ofSeconds(1);
+	private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("NICE"));
+
+	@Test
+	public void whenTokenIsAuthenticatedTwiceThenSecondRequestGetsItsOwnCopyOfCachedAuthentication() {
+		final var clock = new MutableClock(Instant.now());
+		final var delegate = delegate(() -> jwtAuthentication(clock.instant().plusSeconds(60)));
+		final var manager = new CachingReactiveAuthenticationManager(delegate, new TokenCache<>(10, Duration.ofMinutes(5), clock));
+
+		final var first = manager.authenticate(bearer("first request")).block(TIMEOUT);
+		first.setAuthenticated(false);
+		final var second = manager.authenticate(bearer("second request")).block(TIMEOUT);
+
+		verify(delegate, times(1)).authenticate(any());
+		assertThat(second).isInstanceOf(JwtAuthenticationToken.class).isNotSameAs(first);
+		assertThat(second.isAuthenticated()).isTrue();
+		assertThat(second.getName()).isEqualTo("ch4mpy");
+		assertThat(List.copyOf(second.getAuthorities())).isEqualTo(AUTHORITIES);
+		assertThat(second.getDetails()).isEqualTo("second request");
+	}
+
+	@Test
+	public void whenOAuthenticationIsCachedThenCopiesShareClaims() {
+		final var claims = new OpenidClaimSet(Map.of("sub", "ch4mpy", "exp", Instant.now().plusSeconds(60)));
+		final var delegate = delegate(() -> new OAuthentication<>(claims, AUTHORITIES, "token"));
+		final var manager = new CachingReactiveAuthenticationManager(delegate, new TokenCache<>(10, Duration.ofMinutes(5)));
+
+		final var first = manager.authenticate(bearer(null)).block(TIMEOUT);
+		final var second = manager.authenticate(bearer(null)).block(TIMEOUT);
+
+		verify(delegate, times(1)).authenticate(any());
+		assertThat(second).isInstanceOf(OAuthentication.class).isNotSameAs(first);
+		assertThat(((OAuthentication<?>) second).getClaims()).isSameAs(claims);
+		assertThat(((OAuthentication<?>) second).getTokenString()).isEqualTo("token");
+	}
+
+	@Test
+	public void whenTokenExpiresThenCachedAuthenticationExpiresWithIt() {
+		final var clock = new MutableClock(Instant.now());
+		final var exp = clock.instant().plusSeconds(60);
+		final var delegate = delegate(() -> jwtAuthentication(exp));
+		final var manager = new CachingReactiveAuthenticationManager(delegate, new TokenCache<>(10, Duration.ofMinutes(5), clock));
+
+		manager.authenticate(bearer(null)).block(TIMEOUT);
+		clock.now = exp.minusSeconds(1);
+		manager.authenticate(bearer(null)).block(TIMEOUT);
+		verify(delegate, times(1)).authenticate(any());
+
+		clock.now = exp;
+		manager.authenticate(bearer(null)).block(TIMEOUT);
+		verify(delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void whenAuthenticationCantBeCopiedThenItIsNotCached() {
+		final var delegate = delegate(() -> new TestingAuthenticationToken("ch4mpy", "token", "NICE"));
+		final var manager = new CachingReactiveAuthenticationManager(delegate, new TokenCache<>(10, Duration.ofMinutes(5)));
+
+		manager.authenticate(bearer(null)).block(TIMEOUT);
+		manager.authenticate(bearer(null)).block(TIMEOUT);
+
+		verify(delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void whenTokenIsAuthenticatedConcurrentlyThenEachRequestGetsItsOwnAuthentication() throws Exception {
+		final var delegate = delegate(() -> jwtAuthentication(Instant.now().plusSeconds(60)));
+		final var manager = new CachingReactiveAuthenticationManager(delegate, new TokenCache<>(10, Duration.ofMinutes(5)));
+		final var threads = 8;
+		final var callsPerThread = 200;
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var tasks = new ArrayList<Callable<List<Authentication>>>();
+			for (var i = 0; i < threads; ++i) {
+				tasks.add(() -> {
+					final var results = new ArrayList<Authentication>(callsPerThread);
+					for (var j = 0; j < callsPerThread; ++j) {
+						results.add(manager.authenticate(bearer(Thread.currentThread().getName())).block(TIMEOUT));
+					}
+					return results;
+				});
+			}
+			final var distinct = Collections.newSetFromMap(new IdentityHashMap<Authentication, Boolean>());
+			for (final var future : executor.invokeAll(tasks)) {
+				for (final var result : future.get()) {
+					assertThat(result.getName()).isEqualTo("ch4mpy");
+					distinct.add(result);
+				}
+			}
+			assertThat(distinct).hasSize(threads * callsPerThread);
+			verify(delegate, atMost(threads)).authenticate(any());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static ReactiveAuthenticationManager delegate(Supplier<Authentication> authentications) {
+		final var delegate = mock(ReactiveAuthenticationManager.class);
+		when(delegate.authenticate(any())).thenAnswer(invocation -> Mono.fromSupplier(authentications));
+		return delegate;
+	}
+
+	private static BearerTokenAuthenticationToken bearer(Object details) {
+		final var bearer = new BearerTokenAuthenticationToken("token");
+		bearer.setDetails(details);
+		return bearer;
+	}
+
+	private static JwtAuthenticationToken jwtAuthentication(Instant exp) {
+		final var jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("ch4mpy").issuedAt(exp.minusSeconds(120)).expiresAt(exp).build();
+		return new JwtAuthenticationToken(jwt, AUTHORITIES, "ch4mpy");
+	}
+
+	static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
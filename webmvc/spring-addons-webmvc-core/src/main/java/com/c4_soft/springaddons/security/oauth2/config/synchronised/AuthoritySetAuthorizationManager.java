@@ -0,0 +1,84 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import com.c4_soft.springaddons.security.oauth2.AuthoritySet;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+
+/**
+ * <p>
+ * Authority based {@link AuthorizationManager} answering with bit operations on {@link AuthoritySet} for {@link OAuthentication}: required
+ * authorities are indexed once, when the manager is created, and {@link OAuthentication} caches its granted authorities bitset. For other
+ * {@link Authentication} implementations, granted authority names are looked up in the required ones (without registering them in the
+ * {@link com.c4_soft.springaddons.security.oauth2.AuthorityRegistry}).
+ * </p>
+ * <p>
+ * No role hierarchy is applied: only the authorities granted to the {@link Authentication} are checked. Use Spring
+ * {@link org.springframework.security.authorization.AuthorityAuthorizationManager} and its role hierarchy setter if reachable
+ * authorities should be granted access too.
+ * </p>
+ * <p>
+ * Sample usage in an {@link ExpressionInterceptUrlRegistryPostProcessor}:
+ * </p>
+ *
+ * <pre>
+ * registry.requestMatchers("/secured-route").access(AuthoritySetAuthorizationManager.hasAnyRole("AUTHORIZED_PERSONNEL", "ADMIN"))
+ * </pre>
+ *
+ * @author    ch4mp
+ * @param <T> type of the secured object (RequestAuthorizationContext, MethodInvocation, ...)
+ */
+public final class AuthoritySetAuthorizationManager<T> implements AuthorizationManager<T> {
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final AuthoritySet requiredAuthorities;
+    private final Set<String> requiredAuthorityNames;
+
+    private AuthoritySetAuthorizationManager(String... authorities) {
+        this.requiredAuthorities = AuthoritySet.of(authorities);
+        this.requiredAuthorityNames = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(authorities)));
+    }
+
+    public static <T> AuthoritySetAuthorizationManager<T> hasAuthority(String authority) {
+        return new AuthoritySetAuthorizationManager<>(authority);
+    }
+
+    public static <T> AuthoritySetAuthorizationManager<T> hasAnyAuthority(String... authorities) {
+        return new AuthoritySetAuthorizationManager<>(authorities);
+    }
+
+    public static <T> AuthoritySetAuthorizationManager<T> hasRole(String role) {
+        return hasAnyRole(role);
+    }
+
+    public static <T> AuthoritySetAuthorizationManager<T> hasAnyRole(String... roles) {
+        return new AuthoritySetAuthorizationManager<>(
+                Arrays.stream(roles).map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role).toArray(String[]::new));
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, T object) {
+        final var auth = authentication.get();
+        return new AuthorizationDecision(auth != null && auth.isAuthenticated() && isGranted(auth));
+    }
+
+    private boolean isGranted(Authentication auth) {
+        if (auth instanceof OAuthentication<?> oauth) {
+            return oauth.getAuthoritySet().containsAny(requiredAuthorities);
+        }
+        for (final var granted : auth.getAuthorities()) {
+            if (requiredAuthorityNames.contains(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+
+import com.c4_soft.springaddons.security.oauth2.config.CompiledCorsConfigurations;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.CorsProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Servlet {@link CorsConfigurationSource} backed by {@link CompiledCorsConfigurations}
+ *
+ * @author ch4mp
+ */
+public class CompiledCorsConfigurationSource implements CorsConfigurationSource {
+    private final CompiledCorsConfigurations configurations;
+
+    public CompiledCorsConfigurationSource(CorsProperties[] corsProperties) {
+        this.configurations = new CompiledCorsConfigurations(corsProperties);
+    }
+
+    @Override
+    public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
+        return configurations.getCorsConfiguration(HttpServletRequestSupport.getRequestPath(request));
+    }
+}
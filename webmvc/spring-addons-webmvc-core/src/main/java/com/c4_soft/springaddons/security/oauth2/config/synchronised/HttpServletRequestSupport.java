@@ -38,6 +38,19 @@ public class HttpServletRequestSupport {
 		return Optional.empty();
 	}
 
+	/**
+	 * @param  request a servlet request
+	 * @return         the path within servlet context (same as AntPathRequestMatcher uses)
+	 */
+	public static String getRequestPath(HttpServletRequest request) {
+		final var servletPath = request.getServletPath();
+		final var pathInfo = request.getPathInfo();
+		if (pathInfo == null) {
+			return servletPath;
+		}
+		return StringUtils.hasLength(servletPath) ? servletPath + pathInfo : pathInfo;
+	}
+
 	/**
 	 * @param  headerName name of the header to retrieve
 	 * @return               the unique value for the given header in current request
@@ -0,0 +1,50 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.c4_soft.springaddons.security.oauth2.config.CompiledPathPatterns;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * <p>
+ * Single {@link RequestMatcher} for all {@link SpringAddonsSecurityProperties#getPermitAll()} patterns, compiled into
+ * {@link CompiledPathPatterns}: literal and "/**" patterns are matched with a single walk of the request path segments instead of
+ * sequentially.
+ * </p>
+ * <p>
+ * Patterns have {@link org.springframework.web.util.pattern.PathPattern} semantics, like the MvcRequestMatcher instances
+ * {@code requestMatchers(String...)} creates when Spring MVC is on the classpath (and Spring MVC default path matching): {@code /**} and
+ * {@code {*path}} are only allowed at the end of a pattern and {@code /api} does not match {@code /api/}. Patterns are matched against the
+ * servlet path plus path info of the request.
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class PermitAllRequestMatcher implements RequestMatcher {
+    private final CompiledPathPatterns patterns;
+
+    public PermitAllRequestMatcher(String... patterns) {
+        this.patterns = new CompiledPathPatterns(patterns, pattern -> {
+            final var pathPattern = PathPatternParser.defaultInstance.parse(pattern);
+            return path -> pathPattern.matches(PathContainer.parsePath(path));
+        });
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return patterns.test(HttpServletRequestSupport.getRequestPath(request));
+    }
+
+    /**
+     * @param delegate resolver to use for requests which are not matched
+     * @return a resolver which does not even look for a Bearer token in matched requests
+     */
+    public BearerTokenResolver skipBearerToken(BearerTokenResolver delegate) {
+        return request -> matches(request) ? null : delegate.resolve(request);
+    }
+}
@@ -0,0 +1,76 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.c4_soft.springaddons.security.oauth2.AuthorityRegistry;
+import com.c4_soft.springaddons.security.oauth2.OAuthentication;
+import com.c4_soft.springaddons.security.oauth2.OpenidClaimSet;
+
+public class AuthoritySetAuthorizationManagerTest {
+
+	@Test
+	public void whenAnyRequiredAuthorityIsGrantedThenAccessIsGranted() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE", "ROLE_USER");
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("NICE"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAnyAuthority("SUPER_COOL", "NICE"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("SUPER_COOL"), auth)).isFalse();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAnyAuthority(), auth)).isFalse();
+	}
+
+	@Test
+	public void whenRolesAreRequiredThenPrefixIsAddedIfMissing() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "ROLE_USER");
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasRole("USER"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAnyRole("ADMIN", "ROLE_USER"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("USER"), auth)).isFalse();
+	}
+
+	@Test
+	public void whenRoleHierarchyWouldReachRequiredRoleThenAccessIsDenied() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "ROLE_ADMIN");
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasRole("ADMIN"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasRole("USER"), auth)).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsMissingOrNotAuthenticatedThenAccessIsDenied() {
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", "NICE");
+		auth.setAuthenticated(false);
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("NICE"), auth)).isFalse();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("NICE"), null)).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsOAuthenticationThenItsAuthoritySetIsUsed() {
+		final var auth = new OAuthentication<>(new OpenidClaimSet(Map.of("sub", "ch4mpy")), List.of(new SimpleGrantedAuthority("NICE")), "token");
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAnyAuthority("SUPER_COOL", "NICE"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAnyRole("NICE"), auth)).isFalse();
+	}
+
+	@Test
+	public void whenAuthenticationIsNotOAuthenticationThenGrantedAuthoritiesAreNotRegistered() {
+		final var granted = "AuthoritySetAuthorizationManagerTest_GRANTED_ONLY";
+		final var auth = new TestingAuthenticationToken("ch4mpy", "pwd", granted, "NICE");
+
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("NICE"), auth)).isTrue();
+		assertThat(isGranted(AuthoritySetAuthorizationManager.hasAuthority("SUPER_COOL"), auth)).isFalse();
+		assertThat(AuthorityRegistry.indexOf(granted)).isNegative();
+	}
+
+	private static boolean isGranted(AuthoritySetAuthorizationManager<Object> manager, Authentication auth) {
+		return manager.check(() -> auth, new Object()).isGranted();
+	}
+}
@@ -0,0 +1,67 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.springframework.web.util.pattern.PatternParseException;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public class PermitAllRequestMatcherTest {
+
+	@Test
+	public void whenPatternsAreLiteralOrPrefixesThenTheyMatchLikePathPatterns() {
+		final var matcher = new PermitAllRequestMatcher("/actuator/health/readiness", "/v3/api-docs/**", "/favicon.ico");
+
+		assertThat(matcher.matches(request("/actuator/health/readiness", null))).isTrue();
+		assertThat(matcher.matches(request("/v3/api-docs", null))).isTrue();
+		assertThat(matcher.matches(request("/v3/api-docs/swagger-config", null))).isTrue();
+		assertThat(matcher.matches(request("/favicon.ico/", null))).isFalse();
+		assertThat(matcher.matches(request("/actuator/health", null))).isFalse();
+	}
+
+	@Test
+	public void whenPatternsHaveWildcardsThenTheyHavePathPatternSemantics() {
+		final var matcher = new PermitAllRequestMatcher("/files/{*path}", "/greet/{name}", "/*.css");
+
+		assertThat(matcher.matches(request("/files/a/b/c.txt", null))).isTrue();
+		assertThat(matcher.matches(request("/files", null))).isTrue();
+		assertThat(matcher.matches(request("/greet/ch4mpy", null))).isTrue();
+		assertThat(matcher.matches(request("/greet/ch4mpy/again", null))).isFalse();
+		assertThat(matcher.matches(request("/main.css", null))).isTrue();
+		assertThat(matcher.matches(request("/css/main.css", null))).isFalse();
+	}
+
+	@Test
+	public void whenRequestHasPathInfoThenItIsAppendedToServletPath() {
+		final var matcher = new PermitAllRequestMatcher("/public/**");
+
+		assertThat(matcher.matches(request("/public", "/greet"))).isTrue();
+		assertThat(matcher.matches(request("", "/public/greet"))).isTrue();
+		assertThat(matcher.matches(request("/private", "/public"))).isFalse();
+	}
+
+	@Test
+	public void whenDoubleWildcardIsNotLastThenPatternIsRejected() {
+		assertThatThrownBy(() -> new PermitAllRequestMatcher("/**/*.css")).isInstanceOf(PatternParseException.class);
+	}
+
+	@Test
+	public void whenBearerTokenSkippingIsEnabledThenMatchedRequestsAreNotResolved() {
+		final var matcher = new PermitAllRequestMatcher("/public/**");
+		final var resolver = matcher.skipBearerToken(request -> "token");
+
+		assertThat(resolver.resolve(request("/public/greet", null))).isNull();
+		assertThat(resolver.resolve(request("/greet", null))).isEqualTo("token");
+	}
+
+	private static HttpServletRequest request(String servletPath, String pathInfo) {
+		final var request = mock(HttpServletRequest.class);
+		when(request.getServletPath()).thenReturn(servletPath);
+		when(request.getPathInfo()).thenReturn(pathInfo);
+		return request;
+	}
+}
@@ -1,15 +1,19 @@
 package com.c4_soft.springaddons.security.oauth2.config.synchronised;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -25,16 +29,22 @@ import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
 import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthentication;
+import org.springframework.security.oauth2.server.resource.introspection.NimbusOpaqueTokenIntrospector;
 import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.server.SecurityWebFilterChain;
-import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.c4_soft.springaddons.security.oauth2.TokenCacheMetrics;
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.OAuth2AuthoritiesConverter;
 import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -67,12 +77,19 @@ import lombok.extern.slf4j.Slf4j;
  * <li><b>OpaqueTokenIntrospector</b>: extract authorities (could also turn
  * introspection result into an Authentication of your choice if
  * https://github.com/spring-projects/spring-security/issues/11661 is
- * solved)</li>
+ * solved), optionally caches introspection results and validates locally
+ * JWT access-tokens from configured issuers</li>
+ * <li><b>introspectionCache</b>: if enabled in
+ * {@link SpringAddonsSecurityProperties}, caches introspection results by
+ * access-token (exposed as Micrometer metrics when available)</li>
+ * <li><b>JwkSetCache</b>: if local JWT validation is enabled in
+ * {@link SpringAddonsSecurityProperties}, JWK sets of configured issuers,
+ * refreshed in the background</li>
  * </ul>
  *
  * @author Jerome Wacongne ch4mp&#64;c4-soft.com
  */
-@AutoConfiguration
+@AutoConfiguration(before = OAuth2ResourceServerAutoConfiguration.class)
 @EnableWebSecurity
 @Slf4j
 @Import({ AddonsSecurityBeans.class })
@@ -122,6 +139,11 @@ public class AddonsWebSecurityBeans {
             throws Exception {
         http.oauth2ResourceServer().opaqueToken().authenticationConverter(introspectionAuthenticationConverter);
 
+        final var permitAll = new PermitAllRequestMatcher(addonsProperties.getPermitAll());
+        if (addonsProperties.isPermitAllSkipsBearerToken()) {
+            http.oauth2ResourceServer().bearerTokenResolver(permitAll.skipBearerToken(new DefaultBearerTokenResolver()));
+        }
+
         if (addonsProperties.getPermitAll().length > 0) {
             http.anonymous();
         }
@@ -170,7 +192,7 @@ public class AddonsWebSecurityBeans {
 
         authorizePostProcessor
                 .authorizeHttpRequests(
-                        http.authorizeHttpRequests().requestMatchers(addonsProperties.getPermitAll()).permitAll());
+                        http.authorizeHttpRequests().requestMatchers(permitAll).permitAll());
 
         return httpPostProcessor.process(http).build();
     }
@@ -206,16 +228,87 @@ public class AddonsWebSecurityBeans {
     private CorsConfigurationSource corsConfigurationSource(SpringAddonsSecurityProperties securityProperties) {
         log.debug("Building default CorsConfigurationSource with: {}",
                 Stream.of(securityProperties.getCors()).toList());
-        final var source = new UrlBasedCorsConfigurationSource();
-        for (final var corsProps : securityProperties.getCors()) {
-            final var configuration = new CorsConfiguration();
-            configuration.setAllowedOrigins(Arrays.asList(corsProps.getAllowedOrigins()));
-            configuration.setAllowedMethods(Arrays.asList(corsProps.getAllowedMethods()));
-            configuration.setAllowedHeaders(Arrays.asList(corsProps.getAllowedHeaders()));
-            configuration.setExposedHeaders(Arrays.asList(corsProps.getExposedHeaders()));
-            source.registerCorsConfiguration(corsProps.getPath(), configuration);
-        }
-        return source;
+        return new CompiledCorsConfigurationSource(securityProperties.getCors());
+    }
+
+    /**
+     * Cache for introspection results (with already mapped authorities)
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a cache of introspection results by access-token
+     */
+    @ConditionalOnMissingBean(name = "introspectionCache")
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.cache.enabled", havingValue = "true")
+    @Bean
+    TokenCache<OAuth2AuthenticatedPrincipal> introspectionCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var cacheProps = addonsProperties.getIntrospection().getCache();
+        log.debug("Building introspection results cache with: {}", cacheProps);
+        return new TokenCache<>(cacheProps.getMaxSize(), cacheProps.getMaxTtl());
+    }
+
+    /**
+     * Shared cache of JWK sets (one per issuer), refreshed in the background, to
+     * validate locally JWT access-tokens from configured issuers
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a JWK sets cache used for local JWT validation
+     */
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.local-jwt-validation", havingValue = "true")
+    @Bean
+    JwkSetCache jwkSetCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var jwkSetProps = addonsProperties.getJwt().getJwkSet();
+        log.debug("Building JwkSetCache with: {}", jwkSetProps);
+        return new JwkSetCache(
+                jwkSetProps.getRefreshInterval(),
+                jwkSetProps.getMinRefetchInterval(),
+                jwkSetProps.getConnectTimeout(),
+                jwkSetProps.getReadTimeout());
+    }
+
+    /**
+     * Introspector bean replacing spring-boot default one: maps authorities with
+     * the {@link OAuth2AuthoritiesConverter} and, if enabled in
+     * {@link SpringAddonsSecurityProperties}, caches introspection results and
+     * validates locally JWT access-tokens from configured issuers
+     *
+     * @param oauth2Properties     "spring.security.oauth2.resourceserver"
+     *                             configuration properties (introspection
+     *                             end-point and client credentials)
+     * @param addonsProperties     "com.c4-soft.springaddons.security"
+     *                             configuration properties
+     * @param authoritiesConverter converts access-token claims into Spring
+     *                             authorities
+     * @param introspectionCache   if present, introspection results are
+     *                             cached by access-token
+     * @param jwkSetCache          JWK sets for local JWT validation (present
+     *                             only if enabled)
+     * @return an introspector mapping authorities and caching introspection
+     *         results
+     */
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "spring.security.oauth2.resourceserver.opaquetoken.introspection-uri")
+    @Bean
+    OpaqueTokenIntrospector introspector(
+            OAuth2ResourceServerProperties oauth2Properties,
+            SpringAddonsSecurityProperties addonsProperties,
+            Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+            Optional<TokenCache<OAuth2AuthenticatedPrincipal>> introspectionCache,
+            Optional<JwkSetCache> jwkSetCache) {
+        final var opaqueTokenProps = oauth2Properties.getOpaquetoken();
+        log.debug("Building default C4OpaqueTokenIntrospector with: {}", opaqueTokenProps.getIntrospectionUri());
+        final OpaqueTokenIntrospector remote = new NimbusOpaqueTokenIntrospector(
+                opaqueTokenProps.getIntrospectionUri(),
+                opaqueTokenProps.getClientId(),
+                opaqueTokenProps.getClientSecret());
+        return new C4OpaqueTokenIntrospector(
+                addonsProperties.getIntrospection().isLocalJwtValidation()
+                        ? new HybridOpaqueTokenIntrospector(remote, addonsProperties.getIssuers(), jwkSetCache.orElseThrow())
+                        : remote,
+                authoritiesConverter,
+                introspectionCache.orElse(null));
     }
 
     /**
@@ -226,6 +319,8 @@ public class AddonsWebSecurityBeans {
      *                              authorities
      * @param authenticationFactory builds an {@link Authentication} instance from
      *                              access-token string and claims
+     * @param introspector          if a {@link C4OpaqueTokenIntrospector}, the
+     *                              authorities it already mapped are used as is
      * @return a converter from successful introspection result to an
      *         {@link Authentication} instance
      */
@@ -233,7 +328,9 @@ public class AddonsWebSecurityBeans {
     @Bean
     OpaqueTokenAuthenticationConverter introspectionAuthenticationConverter(
             Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
-            Optional<OAuth2AuthenticationFactory> authenticationFactory) {
+            Optional<OAuth2AuthenticationFactory> authenticationFactory,
+            Optional<OpaqueTokenIntrospector> introspector) {
+        final var isAuthoritiesMappedByIntrospector = introspector.filter(C4OpaqueTokenIntrospector.class::isInstance).isPresent();
         return (String introspectedToken, OAuth2AuthenticatedPrincipal authenticatedPrincipal) -> authenticationFactory
                 .map(af -> af.build(introspectedToken, authenticatedPrincipal.getAttributes())).orElse(
                         new BearerTokenAuthentication(
@@ -243,6 +340,20 @@ public class AddonsWebSecurityBeans {
                                         introspectedToken,
                                         authenticatedPrincipal.getAttribute(OAuth2TokenIntrospectionClaimNames.IAT),
                                         authenticatedPrincipal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP)),
-                                authoritiesConverter.convert(authenticatedPrincipal.getAttributes())));
+                                isAuthoritiesMappedByIntrospector
+                                        ? authenticatedPrincipal.getAuthorities()
+                                        : authoritiesConverter.convert(authenticatedPrincipal.getAttributes())));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.introspection.cache.enabled", havingValue = "true")
+    static class IntrospectionCacheMetricsConfiguration {
+
+        @ConditionalOnMissingBean(name = "introspectionCacheMetrics")
+        @Bean
+        MeterBinder introspectionCacheMetrics(TokenCache<OAuth2AuthenticatedPrincipal> introspectionCache) {
+            return new TokenCacheMetrics("introspection", introspectionCache);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,125 @@
 package com.c4_soft.springaddons.security.oauth2.config.synchronised;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
 import org.springframework.security.oauth2.server.resource.introspection.NimbusOpaqueTokenIntrospector;
 import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
 import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
 
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+/**
+ * <p>
+ * Introspects access-tokens and maps authorities with the provided converter.
+ * </p>
+ * <p>
+ * If a {@link TokenCache} is provided, introspection results (with already converted authorities) are cached until the earliest of token
+ * expiry and cache max-TTL: no request is sent to the authorization-server for tokens already introspected.
+ * </p>
+ * <p>
+ * Concurrent introspections of the same token share a single call to the authorization-server (and its result).
+ * </p>
+ */
 // FIXME: remove when https://github.com/spring-projects/spring-security/issues/11661 is solved
 public class C4OpaqueTokenIntrospector implements OpaqueTokenIntrospector {
-	private final NimbusOpaqueTokenIntrospector delegate;
+	private final OpaqueTokenIntrospector delegate;
 	private final Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter;
+	private final Optional<TokenCache<OAuth2AuthenticatedPrincipal>> cache;
+	private final Map<String, CompletableFuture<OAuth2AuthenticatedPrincipal>> inFlight = new ConcurrentHashMap<>();
 
 	public C4OpaqueTokenIntrospector(
 			String introspectionUri,
 			String clientId,
 			String clientSecret,
 			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter) {
-		this.delegate = new NimbusOpaqueTokenIntrospector(introspectionUri, clientId, clientSecret);
+		this(introspectionUri, clientId, clientSecret, authoritiesConverter, null);
+	}
+
+	public C4OpaqueTokenIntrospector(
+			String introspectionUri,
+			String clientId,
+			String clientSecret,
+			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+			@Nullable TokenCache<OAuth2AuthenticatedPrincipal> cache) {
+		this(new NimbusOpaqueTokenIntrospector(introspectionUri, clientId, clientSecret), authoritiesConverter, cache);
+	}
+
+	public C4OpaqueTokenIntrospector(
+			OpaqueTokenIntrospector delegate,
+			Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
+			@Nullable TokenCache<OAuth2AuthenticatedPrincipal> cache) {
+		this.delegate = delegate;
 		this.authoritiesConverter = authoritiesConverter;
+		this.cache = Optional.ofNullable(cache);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public OAuth2AuthenticatedPrincipal introspect(String token) {
+		final var cached = cache.map(c -> c.get(token)).orElse(null);
+		if (cached != null) {
+			return cached;
+		}
+
+		final var introspection = new CompletableFuture<OAuth2AuthenticatedPrincipal>();
+		final var pending = inFlight.putIfAbsent(token, introspection);
+		if (pending != null) {
+			return await(pending);
+		}
+
+		try {
+			final var principal = doIntrospect(token);
+			cache.ifPresent(c -> c.put(token, principal, getExpiresAt(principal)));
+			introspection.complete(principal);
+			return principal;
+		} catch (RuntimeException | Error e) {
+			introspection.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(token, introspection);
+		}
+	}
+
+	/**
+	 * @return the introspection results cache (to expose hit, miss and eviction counters for instance)
+	 */
+	public Optional<TokenCache<OAuth2AuthenticatedPrincipal>> getCache() {
+		return cache;
+	}
+
+	@SuppressWarnings("unchecked")
+	private OAuth2AuthenticatedPrincipal doIntrospect(String token) {
 		final var auth = this.delegate.introspect(token);
 		final var authorities = authoritiesConverter.convert(auth.getAttributes());
 		return new OAuth2IntrospectionAuthenticatedPrincipal(auth.getAttributes(), (Collection<GrantedAuthority>) authorities);
 	}
 
-}
\ No newline at end of file
+	private static OAuth2AuthenticatedPrincipal await(CompletableFuture<OAuth2AuthenticatedPrincipal> pending) {
+		try {
+			return pending.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private static @Nullable Instant getExpiresAt(OAuth2AuthenticatedPrincipal principal) {
+		return principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP) instanceof Instant exp ? exp : null;
+	}
+
+}
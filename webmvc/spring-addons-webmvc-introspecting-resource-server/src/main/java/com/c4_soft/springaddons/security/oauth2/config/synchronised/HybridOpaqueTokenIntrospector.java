@@ -0,0 +1,138 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Validates locally access-tokens which are JWS issued by one of the configured issuers (against the issuer JWK set, from the shared
+ * {@link JwkSetCache}) and delegates to remote introspection for all other tokens.
+ * </p>
+ * <p>
+ * JWT decoders are created lazily, when a token from an issuer is validated for the first time. If the decoder can't be created (OpenID
+ * configuration discovery or JWK set retrieval failure), the token is introspected remotely and the decoder creation is retried with next
+ * token from that issuer. Invalid JWTs from a configured issuer are rejected without remote introspection. Issuers are matched ignoring
+ * trailing slashes.
+ * </p>
+ *
+ * @author ch4mp
+ */
+@Slf4j
+public class HybridOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+	private final OpaqueTokenIntrospector remote;
+	private final Map<String, IssuerProperties> issuers;
+	private final JwkSetCache jwkSetCache;
+	private final Map<String, C4JwtDecoder> decoders = new ConcurrentHashMap<>();
+
+	public HybridOpaqueTokenIntrospector(OpaqueTokenIntrospector remote, IssuerProperties[] issuers, JwkSetCache jwkSetCache) {
+		this.remote = remote;
+		this.issuers = Stream
+				.of(issuers)
+				.collect(Collectors.toMap(issuer -> normalize(issuer.getLocation().toString()), Function.identity(), (first, second) -> first));
+		this.jwkSetCache = jwkSetCache;
+	}
+
+	@Override
+	public OAuth2AuthenticatedPrincipal introspect(String token) {
+		final var jws = parseJws(token);
+		final var decoder = jws.flatMap(this::getIssuer).flatMap(this::getDecoder);
+		if (decoder.isEmpty()) {
+			return remote.introspect(token);
+		}
+		try {
+			final var jwt = decoder.get().decode(jws.get(), token);
+			return new OAuth2IntrospectionAuthenticatedPrincipal(jwt.getClaims(), List.of());
+		} catch (JwtException e) {
+			throw new BadOpaqueTokenException(e.getMessage(), e);
+		}
+	}
+
+	private Optional<SignedJWT> parseJws(String token) {
+		if (issuers.isEmpty()) {
+			return Optional.empty();
+		}
+		try {
+			if (JWTParser.parse(token) instanceof SignedJWT jws) {
+				return Optional.of(jws);
+			}
+		} catch (ParseException e) {
+			// not a JWT: an opaque token to introspect
+		}
+		return Optional.empty();
+	}
+
+	private Optional<IssuerProperties> getIssuer(SignedJWT jws) {
+		try {
+			return Optional.ofNullable(jws.getJWTClaimsSet().getIssuer()).map(iss -> issuers.get(normalize(iss)));
+		} catch (ParseException e) {
+			return Optional.empty();
+		}
+	}
+
+	private Optional<C4JwtDecoder> getDecoder(IssuerProperties issuer) {
+		final var key = normalize(issuer.getLocation().toString());
+		final var existing = decoders.get(key);
+		if (existing != null) {
+			return Optional.of(existing);
+		}
+		try {
+			// built out of the map to keep OpenID configuration discovery and JWK set retrieval from blocking the decoders of other issuers
+			final var decoder = buildDecoder(issuer, jwkSetCache);
+			final var previous = decoders.putIfAbsent(key, decoder);
+			return Optional.of(previous == null ? decoder : previous);
+		} catch (IllegalArgumentException | IllegalStateException | KeySourceException e) {
+			log.warn("Failed to build JWT decoder for {}, falling back to introspection: {}", issuer.getLocation(), e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	private static C4JwtDecoder buildDecoder(IssuerProperties issuer, JwkSetCache jwkSetCache) throws KeySourceException {
+		final var jwkSource = jwkSetCache.getJwkSource(issuer);
+		jwkSource.load();
+		final var decoder = new C4JwtDecoder(jwkSource);
+		decoder.setJwtValidator(jwtValidator(issuer));
+		return decoder;
+	}
+
+	private static OAuth2TokenValidator<Jwt> jwtValidator(IssuerProperties issuer) {
+		final var expectedIssuer = normalize(issuer.getLocation().toString());
+		return new DelegatingOAuth2TokenValidator<>(
+				new JwtTimestampValidator(),
+				new JwtClaimValidator<Object>(JwtClaimNames.ISS, iss -> iss != null && expectedIssuer.equals(normalize(iss.toString()))));
+	}
+
+	private static String normalize(String issuer) {
+		var end = issuer.length();
+		while (end > 0 && issuer.charAt(end - 1) == '/') {
+			--end;
+		}
+		return end == issuer.length() ? issuer : issuer.substring(0, end);
+	}
+}
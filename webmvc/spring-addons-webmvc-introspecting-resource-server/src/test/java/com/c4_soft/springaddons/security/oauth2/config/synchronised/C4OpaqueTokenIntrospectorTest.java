@@ -0,0 +1,165 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+public class C4OpaqueTokenIntrospectorTest {
+	private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("NICE"));
+
+	@Test
+	public void whenTokenIsIntrospectedTwiceThenSecondResultComesFromCache() {
+		final var clock = new MutableClock(Instant.now());
+		final var delegate = delegate(clock.instant().plusSeconds(60));
+		final var authoritiesConverter = authoritiesConverter();
+		final var introspector = new C4OpaqueTokenIntrospector(delegate, authoritiesConverter, new TokenCache<>(10, Duration.ofMinutes(5), clock));
+
+		final var first = introspector.introspect("token");
+		final var second = introspector.introspect("token");
+
+		assertThat(second).isSameAs(first);
+		verify(delegate, times(1)).introspect("token");
+		assertThat(introspector.getCache().get().getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void whenTokenExpiresBeforeMaxTtlThenCachedResultExpiresWithToken() {
+		final var clock = new MutableClock(Instant.now());
+		final var delegate = delegate(clock.instant().plusSeconds(60));
+		final var introspector = new C4OpaqueTokenIntrospector(delegate, authoritiesConverter(), new TokenCache<>(10, Duration.ofMinutes(5), clock));
+
+		introspector.introspect("token");
+		clock.now = clock.now.plusSeconds(59);
+		introspector.introspect("token");
+		verify(delegate, times(1)).introspect("token");
+
+		clock.now = clock.now.plusSeconds(1);
+		introspector.introspect("token");
+		verify(delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void whenAuthoritiesAreMappedThenTheyAreReusedForCachedResults() {
+		final var clock = new MutableClock(Instant.now());
+		final var authoritiesConverter = authoritiesConverter();
+		final var introspector =
+				new C4OpaqueTokenIntrospector(delegate(clock.instant().plusSeconds(60)), authoritiesConverter, new TokenCache<>(10, Duration.ofMinutes(5), clock));
+
+		final var first = introspector.introspect("token");
+		final var second = introspector.introspect("token");
+
+		assertThat(List.copyOf(first.getAuthorities())).isEqualTo(AUTHORITIES);
+		assertThat(second.getAuthorities()).isSameAs(first.getAuthorities());
+		verify(authoritiesConverter, times(1)).convert(any());
+	}
+
+	@Test
+	public void whenNoCacheIsProvidedThenEachCallIsIntrospected() {
+		final var delegate = delegate(Instant.now().plusSeconds(60));
+		final var introspector = new C4OpaqueTokenIntrospector(delegate, authoritiesConverter(), null);
+
+		introspector.introspect("token");
+		introspector.introspect("token");
+
+		assertThat(introspector.getCache()).isEmpty();
+		verify(delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void whenConcurrentIntrospectionsOfSameTokenThenASingleUpstreamCallIsIssued() throws Exception {
+		final var entered = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var delegate = mock(OpaqueTokenIntrospector.class);
+		when(delegate.introspect(any())).thenAnswer(invocation -> {
+			entered.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return new OAuth2IntrospectionAuthenticatedPrincipal(Map.of(OAuth2TokenIntrospectionClaimNames.SUB, "ch4mpy"), List.of());
+		});
+		final var introspector = new C4OpaqueTokenIntrospector(delegate, authoritiesConverter(), null);
+
+		final var first = new AtomicReference<OAuth2AuthenticatedPrincipal>();
+		final var second = new AtomicReference<OAuth2AuthenticatedPrincipal>();
+		final var leader = new Thread(() -> first.set(introspector.introspect("token")));
+		leader.start();
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+		final var follower = new Thread(() -> second.set(introspector.introspect("token")));
+		follower.start();
+		final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (follower.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+		leader.join(5000);
+		follower.join(5000);
+
+		verify(delegate, times(1)).introspect("token");
+		assertThat(first.get()).isNotNull();
+		assertThat(second.get()).isSameAs(first.get());
+	}
+
+	private static OpaqueTokenIntrospector delegate(Instant exp) {
+		final var delegate = mock(OpaqueTokenIntrospector.class);
+		when(delegate.introspect(any()))
+				.thenAnswer(
+						invocation -> new OAuth2IntrospectionAuthenticatedPrincipal(
+								Map.of(OAuth2TokenIntrospectionClaimNames.SUB, "ch4mpy", OAuth2TokenIntrospectionClaimNames.EXP, exp),
+								List.of()));
+		return delegate;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter() {
+		final Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> converter = mock(Converter.class);
+		when(converter.convert(any())).thenAnswer(invocation -> AUTHORITIES);
+		return converter;
+	}
+
+	static class MutableClock extends Clock {
+		Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties.IssuerProperties;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+public class HybridOpaqueTokenIntrospectorTest {
+	private RSAKey signingKey;
+	private HttpServer authorizationServer;
+	private JwkSetCache jwkSetCache;
+	private OpaqueTokenIntrospector remote;
+
+	@Before
+	public void setUp() throws JOSEException, IOException {
+		signingKey = new RSAKeyGenerator(2048).keyID("test-key").generate();
+		final var jwks = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+		authorizationServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		authorizationServer.createContext("/certs", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, jwks.length);
+			exchange.getResponseBody().write(jwks);
+			exchange.close();
+		});
+		authorizationServer.createContext("/", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		authorizationServer.start();
+		jwkSetCache = new JwkSetCache(Duration.ZERO, Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+		remote = mock(OpaqueTokenIntrospector.class);
+		when(remote.introspect(any()))
+				.thenAnswer(invocation -> new OAuth2IntrospectionAuthenticatedPrincipal(Map.of(OAuth2TokenIntrospectionClaimNames.SUB, "remote"), List.of()));
+	}
+
+	@After
+	public void tearDown() {
+		jwkSetCache.close();
+		authorizationServer.stop(0);
+	}
+
+	@Test
+	public void whenJwsIsIssuedByConfiguredIssuerThenItIsValidatedLocally() throws JOSEException {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm/", "/certs") }, jwkSetCache);
+
+		final var principal = introspector.introspect(jws(serverUri("/realm"), Instant.now().plusSeconds(60)));
+
+		assertThat(principal.getName()).isEqualTo("ch4mpy");
+		verify(remote, never()).introspect(any());
+	}
+
+	@Test
+	public void whenJwsIsInvalidThenItIsRejectedWithoutRemoteIntrospection() throws JOSEException {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm", "/certs") }, jwkSetCache);
+
+		assertThatThrownBy(() -> introspector.introspect(jws(serverUri("/realm"), Instant.now().minusSeconds(60))))
+				.isInstanceOf(BadOpaqueTokenException.class);
+		verify(remote, never()).introspect(any());
+	}
+
+	@Test
+	public void whenTokenIsOpaqueThenItIsIntrospectedRemotely() {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm", "/certs") }, jwkSetCache);
+
+		assertThat(introspector.introspect("opaque-token").getName()).isEqualTo("remote");
+		assertThat(introspector.introspect(new PlainJWT(claims(serverUri("/realm"), Instant.now().plusSeconds(60))).serialize()).getName())
+				.isEqualTo("remote");
+		verify(remote).introspect("opaque-token");
+	}
+
+	@Test
+	public void whenJwsIssuerIsUnknownThenItIsIntrospectedRemotely() throws JOSEException {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm", "/certs") }, jwkSetCache);
+		final var token = jws(serverUri("/other-realm"), Instant.now().plusSeconds(60));
+
+		assertThat(introspector.introspect(token).getName()).isEqualTo("remote");
+		verify(remote).introspect(token);
+	}
+
+	@Test
+	public void whenIssuerDiscoveryFailsThenTokenIsIntrospectedRemotely() throws JOSEException {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm", null) }, jwkSetCache);
+		final var token = jws(serverUri("/realm"), Instant.now().plusSeconds(60));
+
+		assertThat(introspector.introspect(token).getName()).isEqualTo("remote");
+		verify(remote).introspect(token);
+	}
+
+	@Test
+	public void whenJwkSetIsUnavailableThenTokenIsIntrospectedRemotely() throws JOSEException {
+		final var introspector = new HybridOpaqueTokenIntrospector(remote, new IssuerProperties[] { issuer("/realm", "/missing-certs") }, jwkSetCache);
+		final var token = jws(serverUri("/realm"), Instant.now().plusSeconds(60));
+
+		assertThat(introspector.introspect(token).getName()).isEqualTo("remote");
+		verify(remote).introspect(token);
+	}
+
+	private IssuerProperties issuer(String path, String jwkSetPath) {
+		final var issuer = new IssuerProperties();
+		issuer.setLocation(URI.create(serverUri(path)));
+		issuer.setJwkSetUri(jwkSetPath == null ? null : URI.create(serverUri(jwkSetPath)));
+		return issuer;
+	}
+
+	private String serverUri(String path) {
+		return "http://localhost:%d%s".formatted(authorizationServer.getAddress().getPort(), path);
+	}
+
+	private String jws(String iss, Instant exp) throws JOSEException {
+		final var jws = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims(iss, exp));
+		jws.sign(new RSASSASigner(signingKey));
+		return jws.serialize();
+	}
+
+	private static JWTClaimsSet claims(String iss, Instant exp) {
+		return new JWTClaimsSet.Builder().issuer(iss).subject("ch4mpy").issueTime(Date.from(exp.minusSeconds(120))).expirationTime(Date.from(exp)).build();
+	}
+}
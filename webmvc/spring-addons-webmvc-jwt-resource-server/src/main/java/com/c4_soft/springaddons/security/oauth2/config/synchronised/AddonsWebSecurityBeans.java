@@ -1,6 +1,5 @@
 package com.c4_soft.springaddons.security.oauth2.config.synchronised;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
@@ -8,10 +7,13 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -19,7 +21,6 @@ import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -27,22 +28,26 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
-import org.springframework.security.oauth2.server.resource.authentication.JwtIssuerAuthenticationManagerResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.util.StringUtils;
-import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.c4_soft.springaddons.security.oauth2.TokenCacheMetrics;
+import com.c4_soft.springaddons.security.oauth2.UnmodifiableClaimSet;
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.c4_soft.springaddons.security.oauth2.config.JwkSetCache;
+import com.c4_soft.springaddons.security.oauth2.config.JwtDecodersWarmUp;
 import com.c4_soft.springaddons.security.oauth2.config.SpringAddonsSecurityProperties;
+import com.nimbusds.jose.KeySourceException;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
@@ -73,9 +78,17 @@ import lombok.extern.slf4j.Slf4j;
  * <li><b>SynchronizedJwt2AuthenticationConverter&lt;OAuthentication&lt;T&gt;&gt;</b>:
  * responsible for converting the JWT into an
  * Authentication (uses both beans above)</li>
- * <li><b>JwtIssuerAuthenticationManagerResolver</b>: required to be able to
+ * <li><b>JwkSetCache</b>: JWK sets shared by all JWT decoders, refreshed in
+ * the background</li>
+ * <li><b>AuthenticationManagerResolver</b>: required to be able to
  * define more than one token issuer until
  * https://github.com/spring-projects/spring-boot/issues/30108 is solved</li>
+ * <li><b>authenticationCache</b>: if enabled in
+ * {@link SpringAddonsSecurityProperties}, caches authentications by
+ * access-token (exposed as Micrometer metrics when available)</li>
+ * <li><b>signatureCache</b>: if enabled in
+ * {@link SpringAddonsSecurityProperties}, remembers successful JWT signature
+ * verifications (exposed as Micrometer metrics when available)</li>
  * </ul>
  *
  * @author Jerome Wacongne ch4mp&#64;c4-soft.com
@@ -125,7 +138,13 @@ public class AddonsWebSecurityBeans {
             HttpSecurityPostProcessor httpPostProcessor,
             AuthenticationManagerResolver<HttpServletRequest> authenticationManagerResolver)
             throws Exception {
-        http.oauth2ResourceServer(oauth2 -> oauth2.authenticationManagerResolver(authenticationManagerResolver));
+        final var permitAll = new PermitAllRequestMatcher(addonsProperties.getPermitAll());
+        http.oauth2ResourceServer(oauth2 -> {
+            oauth2.authenticationManagerResolver(authenticationManagerResolver);
+            if (addonsProperties.isPermitAllSkipsBearerToken()) {
+                oauth2.bearerTokenResolver(permitAll.skipBearerToken(new DefaultBearerTokenResolver()));
+            }
+        });
 
         if (addonsProperties.getPermitAll().length > 0) {
             http.anonymous();
@@ -176,7 +195,7 @@ public class AddonsWebSecurityBeans {
 
         authorizePostProcessor
                 .authorizeHttpRequests(
-                        http.authorizeHttpRequests().requestMatchers(addonsProperties.getPermitAll()).permitAll());
+                        http.authorizeHttpRequests().requestMatchers(permitAll).permitAll());
 
         return httpPostProcessor.process(http).build();
     }
@@ -212,16 +231,7 @@ public class AddonsWebSecurityBeans {
     private CorsConfigurationSource corsConfigurationSource(SpringAddonsSecurityProperties securityProperties) {
         log.debug("Building default CorsConfigurationSource with: {}",
                 Stream.of(securityProperties.getCors()).toList());
-        final var source = new UrlBasedCorsConfigurationSource();
-        for (final var corsProps : securityProperties.getCors()) {
-            final var configuration = new CorsConfiguration();
-            configuration.setAllowedOrigins(Arrays.asList(corsProps.getAllowedOrigins()));
-            configuration.setAllowedMethods(Arrays.asList(corsProps.getAllowedMethods()));
-            configuration.setAllowedHeaders(Arrays.asList(corsProps.getAllowedHeaders()));
-            configuration.setExposedHeaders(Arrays.asList(corsProps.getExposedHeaders()));
-            source.registerCorsConfiguration(corsProps.getPath(), configuration);
-        }
-        return source;
+        return new CompiledCorsConfigurationSource(securityProperties.getCors());
     }
 
     public static interface Jwt2AuthenticationConverter<T extends AbstractAuthenticationToken> extends Converter<Jwt, T> {
@@ -244,13 +254,68 @@ public class AddonsWebSecurityBeans {
             Converter<Map<String, Object>, Collection<? extends GrantedAuthority>> authoritiesConverter,
             SpringAddonsSecurityProperties securityProperties,
             Optional<OAuth2AuthenticationFactory> authenticationFactory) {
-        return jwt -> authenticationFactory.map(af -> af.build(jwt.getTokenValue(), jwt.getClaims()))
+        return jwt -> authenticationFactory.map(af -> af.build(jwt.getTokenValue(), new UnmodifiableClaimSet(jwt)))
                 .orElse(new JwtAuthenticationToken(jwt, authoritiesConverter.convert(jwt.getClaims())));
     }
 
     /**
-     * Provides with multi-tenancy: builds a JwtIssuerAuthenticationManagerResolver
-     * per provided OIDC issuer URI
+     * Cache for authentications built from JWT access-tokens (signature
+     * verification and claims conversion are skipped for cached tokens)
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a cache of authentications by access-token
+     */
+    @ConditionalOnMissingBean(name = "authenticationCache")
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.jwt.authentication-cache.enabled", havingValue = "true")
+    @Bean
+    TokenCache<Authentication> authenticationCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var cacheProps = addonsProperties.getJwt().getAuthenticationCache();
+        log.debug("Building authentications cache with: {}", cacheProps);
+        return new TokenCache<>(cacheProps.getMaxSize(), cacheProps.getMaxTtl());
+    }
+
+    /**
+     * Cache for successful JWT signature verifications (the same token presented
+     * again skips signature verification, but claims are still validated)
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a cache of verified signatures by access-token
+     */
+    @ConditionalOnMissingBean(name = "signatureCache")
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.jwt.signature-cache.enabled", havingValue = "true")
+    @Bean
+    TokenCache<Boolean> signatureCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var cacheProps = addonsProperties.getJwt().getSignatureCache();
+        log.debug("Building verified signatures cache with: {}", cacheProps);
+        return new TokenCache<>(cacheProps.getMaxSize(), cacheProps.getMaxTtl());
+    }
+
+    /**
+     * Shared cache of JWK sets (one per issuer), refreshed in the background
+     *
+     * @param addonsProperties "com.c4-soft.springaddons.security"
+     *                         configuration properties
+     * @return a JWK sets cache used by all JWT decoders
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    JwkSetCache jwkSetCache(SpringAddonsSecurityProperties addonsProperties) {
+        final var jwkSetProps = addonsProperties.getJwt().getJwkSet();
+        log.debug("Building JwkSetCache with: {}", jwkSetProps);
+        return new JwkSetCache(
+                jwkSetProps.getRefreshInterval(),
+                jwkSetProps.getMinRefetchInterval(),
+                jwkSetProps.getConnectTimeout(),
+                jwkSetProps.getReadTimeout());
+    }
+
+    /**
+     * Provides with multi-tenancy: tokens are parsed once to select a JWT decoder
+     * by issuer URI and then to verify and convert it. JWT decoders are created lazily, when the
+     * first token from an issuer is received, unless warm-up is enabled in
+     * {@link SpringAddonsSecurityProperties}
      *
      * @param auth2ResourceServerProperties "spring.security.oauth2.resourceserver"
      *                                      configuration properties
@@ -258,15 +323,25 @@ public class AddonsWebSecurityBeans {
      *                                      configuration properties
      * @param jwtAuthenticationConverter    converts from a {@link Jwt} to an
      *                                      {@link Authentication} implementation
-     * @return Multi-tenant {@link JwtIssuerAuthenticationManagerResolver} (one for
-     *         each configured issuer)
+     * @param authenticationCache           if present, authentications are
+     *                                      cached by access-token
+     * @param signatureCache                if present, successful signature
+     *                                      verifications are cached by
+     *                                      access-token
+     * @param jwkSetCache                   shared JWK sets, refreshed in the
+     *                                      background
+     * @return Multi-tenant {@link C4JwtIssuerAuthenticationManagerResolver} (one
+     *         decoder for each configured issuer)
      */
     @ConditionalOnMissingBean
     @Bean
-    JwtIssuerAuthenticationManagerResolver authenticationManagerResolver(
+    AuthenticationManagerResolver<HttpServletRequest> authenticationManagerResolver(
             OAuth2ResourceServerProperties auth2ResourceServerProperties,
             SpringAddonsSecurityProperties addonsProperties,
-            Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter) {
+            Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
+            Optional<TokenCache<Authentication>> authenticationCache,
+            Optional<TokenCache<Boolean>> signatureCache,
+            JwkSetCache jwkSetCache) {
         final var jwtProps = Optional.ofNullable(auth2ResourceServerProperties)
                 .map(OAuth2ResourceServerProperties::getJwt);
         // @formatter:off
@@ -277,22 +352,59 @@ public class AddonsWebSecurityBeans {
 			});
 		// @formatter:on
 
-        final Map<String, AuthenticationManager> jwtManagers = Stream.of(addonsProperties.getIssuers())
-                .collect(Collectors.toMap(issuer -> issuer.getLocation().toString(), issuer -> {
-                    JwtDecoder decoder = issuer.getJwkSetUri() != null
-                            && StringUtils.hasLength(issuer.getJwkSetUri().toString())
-                                    ? NimbusJwtDecoder.withJwkSetUri(issuer.getJwkSetUri().toString()).build()
-                                    : JwtDecoders.fromIssuerLocation(issuer.getLocation().toString());
-                    var provider = new JwtAuthenticationProvider(decoder);
-                    provider.setJwtAuthenticationConverter(jwtAuthenticationConverter);
-                    return provider::authenticate;
-                }));
+        // SingletonSupplier does not memoize failures: JwkSetCache (JWK-set URI
+        // discovery) and RefreshingJwkSource (JWK set retrieval) fail fast and
+        // retry at most once per min-refetch interval
+        final Map<String, SingletonSupplier<C4JwtDecoder>> decoders = Stream.of(addonsProperties.getIssuers())
+                .collect(Collectors.toMap(issuer -> issuer.getLocation().toString(), issuer -> SingletonSupplier.of(() -> {
+                    log.debug("Building JwtDecoder for {}", issuer.getLocation());
+                    final var jwkSource = jwkSetCache.getJwkSource(issuer);
+                    try {
+                        jwkSource.load();
+                    } catch (KeySourceException e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                    final var decoder = new C4JwtDecoder(jwkSource);
+                    decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer.getLocation().toString()));
+                    decoder.setVerifiedSignatures(signatureCache.orElse(null));
+                    return decoder;
+                })));
+
+        final var warmUpProps = addonsProperties.getJwt().getWarmUp();
+        if (warmUpProps.isEnabled()) {
+            JwtDecodersWarmUp.warmUp(decoders, warmUpProps.getTimeout());
+        }
 
         log.debug(
-                "Building default JwtIssuerAuthenticationManagerResolver with: ",
+                "Building default C4JwtIssuerAuthenticationManagerResolver with: {} {}",
                 auth2ResourceServerProperties.getJwt(),
                 Stream.of(addonsProperties.getIssuers()).toList());
 
-        return new JwtIssuerAuthenticationManagerResolver((AuthenticationManagerResolver<String>) jwtManagers::get);
+        return new C4JwtIssuerAuthenticationManagerResolver(decoders, jwtAuthenticationConverter,
+                authenticationCache.orElse(null));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.jwt.authentication-cache.enabled", havingValue = "true")
+    static class AuthenticationCacheMetricsConfiguration {
+
+        @ConditionalOnMissingBean(name = "authenticationCacheMetrics")
+        @Bean
+        MeterBinder authenticationCacheMetrics(TokenCache<Authentication> authenticationCache) {
+            return new TokenCacheMetrics("authentication", authenticationCache);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "com.c4-soft.springaddons.security.jwt.signature-cache.enabled", havingValue = "true")
+    static class SignatureCacheMetricsConfiguration {
+
+        @ConditionalOnMissingBean(name = "signatureCacheMetrics")
+        @Bean
+        MeterBinder signatureCacheMetrics(TokenCache<Boolean> signatureCache) {
+            return new TokenCacheMetrics("jwt-signature", signatureCache);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+import com.c4_soft.springaddons.security.oauth2.config.C4JwtDecoder;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTParser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * <p>
+ * Multi-tenant alternative to {@link org.springframework.security.oauth2.server.resource.authentication.JwtIssuerAuthenticationManagerResolver}:
+ * the token is parsed once, its "iss" claim selects the decoder in a hash map and the same parsed object is used for signature
+ * verification and claims conversion.
+ * </p>
+ * <p>
+ * Decoders are provided as suppliers so that they can be created lazily (when the first token from an issuer is received).
+ * </p>
+ *
+ * @author ch4mp
+ */
+public class C4JwtIssuerAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+	private final AuthenticationManager authenticationManager;
+
+	/**
+	 * @param decoders                   JWT decoders (or suppliers for it) by issuer location
+	 * @param jwtAuthenticationConverter converts from a {@link Jwt} to an {@link Authentication} implementation
+	 * @param cache                      optional authentications cache
+	 */
+	public C4JwtIssuerAuthenticationManagerResolver(
+			Map<String, ? extends Supplier<C4JwtDecoder>> decoders,
+			Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
+			@Nullable TokenCache<Authentication> cache) {
+		final var manager = new IssuerJwtAuthenticationManager(Map.copyOf(decoders), jwtAuthenticationConverter);
+		this.authenticationManager = cache == null ? manager : new CachingAuthenticationManager(manager, cache);
+	}
+
+	@Override
+	public AuthenticationManager resolve(HttpServletRequest context) {
+		return authenticationManager;
+	}
+
+	static class IssuerJwtAuthenticationManager implements AuthenticationManager {
+		private final Map<String, ? extends Supplier<C4JwtDecoder>> decoders;
+		private final Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter;
+
+		IssuerJwtAuthenticationManager(
+				Map<String, ? extends Supplier<C4JwtDecoder>> decoders,
+				Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter) {
+			this.decoders = decoders;
+			this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+		}
+
+		@Override
+		public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+			if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+				return null;
+			}
+			final JWT parsed;
+			final String issuer;
+			try {
+				parsed = JWTParser.parse(bearer.getToken());
+				issuer = parsed.getJWTClaimsSet().getIssuer();
+			} catch (ParseException e) {
+				throw new InvalidBearerTokenException("Invalid JWT: " + e.getMessage(), e);
+			}
+			final var decoderSupplier = issuer == null ? null : decoders.get(issuer);
+			if (decoderSupplier == null) {
+				throw new InvalidBearerTokenException("Invalid issuer");
+			}
+
+			final C4JwtDecoder decoder;
+			try {
+				decoder = decoderSupplier.get();
+			} catch (RuntimeException e) {
+				throw new AuthenticationServiceException("Failed to initialize JWT decoder for " + issuer + ": " + e.getMessage(), e);
+			}
+
+			final Jwt jwt;
+			try {
+				jwt = decoder.decode(parsed, bearer.getToken());
+			} catch (BadJwtException e) {
+				throw new InvalidBearerTokenException(e.getMessage(), e);
+			} catch (JwtException e) {
+				throw new AuthenticationServiceException(e.getMessage(), e);
+			}
+
+			final AbstractAuthenticationToken token = jwtAuthenticationConverter.convert(jwt);
+			if (token != null && token.getDetails() == null) {
+				token.setDetails(bearer.getDetails());
+			}
+			return token;
+		}
+	}
+}
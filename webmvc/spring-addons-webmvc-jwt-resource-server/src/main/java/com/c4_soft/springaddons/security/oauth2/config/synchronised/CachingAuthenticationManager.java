@@ -0,0 +1,41 @@
+package com.c4_soft.springaddons.security.oauth2.config.synchronised;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+import com.c4_soft.springaddons.security.oauth2.AuthenticationCache;
+import com.c4_soft.springaddons.security.oauth2.TokenCache;
+
+/**
+ * Servlet adapter of {@link AuthenticationCache}: authentications built by the delegate for bearer tokens are cached and each request gets
+ * its own copy.
+ *
+ * @author ch4mp
+ */
+public class CachingAuthenticationManager implements AuthenticationManager {
+	private final AuthenticationManager delegate;
+	private final AuthenticationCache cache;
+
+	public CachingAuthenticationManager(AuthenticationManager delegate, TokenCache<Authentication> cache) {
+		this.delegate = delegate;
+		this.cache = new AuthenticationCache(cache);
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+			return delegate.authenticate(authentication);
+		}
+		final var cached = cache.get(bearer);
+		if (cached != null) {
+			return cached;
+		}
+		final var authenticated = delegate.authenticate(authentication);
+		if (authenticated != null) {
+			cache.put(bearer, authenticated);
+		}
+		return authenticated;
+	}
+}